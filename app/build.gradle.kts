@@ -32,6 +32,10 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // Local tests run against the stub android.jar; let calls like Log.w return defaults
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -47,6 +51,9 @@ dependencies {
     implementation(libs.viewpager2)
     implementation(libs.recyclerview)
     implementation(libs.startup.runtime)
+    implementation(libs.paging.runtime)
+    implementation(libs.paging.guava)
+    implementation(libs.guava)
     
     annotationProcessor(libs.room.compiler)
     
@@ -0,0 +1,209 @@
+package com.entertainment.moviememo;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.text.TextUtils;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.entertainment.moviememo.data.dao.MovieDao;
+import com.entertainment.moviememo.data.database.AppDatabase;
+import com.entertainment.moviememo.data.entities.ExportCheckpoint;
+import com.entertainment.moviememo.data.entities.WatchedEntry;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
+import com.entertainment.moviememo.data.entities.WatchlistItem;
+import com.entertainment.moviememo.data.enums.WatchedSort;
+import com.entertainment.moviememo.data.paging.WatchedPagingSource;
+import com.entertainment.moviememo.data.query.WatchedQuery;
+import com.entertainment.moviememo.data.query.WatchlistQuery;
+import com.entertainment.moviememo.utils.BackupSchema;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs every DAO query (and the keyset queries WatchedPagingSource builds) through
+ * EXPLAIN QUERY PLAN and fails on a temp B-tree sort or a scan that doesn't use an index.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    // Queries allowed to sort or scan, with the reason
+    private static final String[][] EXEMPT = {
+        {"MATCH", "full-text results are ranked by relevance, which no index can order"},
+        {"stats_rollup", "one row per stats bucket, not per watched movie"},
+        {"ORDER BY watchedCount DESC", "ordered by the per-person count, which only exists after grouping"},
+        {"ORDER BY COUNT(*) DESC", "suggestions ordered by how often each value is used, which only exists after grouping"}
+    };
+
+    private AppDatabase database;
+    private MovieDao movieDao;
+    private final List<Object[]> statements = new ArrayList<>();
+    private volatile boolean recording = false;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryCallback((sql, args) -> {
+                    if (recording) {
+                        synchronized (statements) {
+                            statements.add(new Object[]{sql, new ArrayList<Object>(args)});
+                        }
+                    }
+                }, Runnable::run)
+                .allowMainThreadQueries()
+                .build();
+        movieDao = database.movieDao();
+
+        // A few rows so the pager has keys to seek from, including NULL ratings and amounts
+        for (int i = 0; i < 6; i++) {
+            WatchedEntry entry = new WatchedEntry("Movie " + i, "2024-0" + (i % 3 + 1) + "-1" + i,
+                    i % 2 == 0 ? "THEATER" : "HOME", "EVENING");
+            entry.rating = i % 3 == 0 ? null : i;
+            entry.spendCents = i % 2 == 0 ? 1500 : null;
+            entry.companions = i % 2 == 0 ? "Alice, Bob" : "bob";
+            entry.theaterName = i % 2 == 0 ? "Rex" : null;
+            entry.city = i % 2 == 0 ? "Springfield" : null;
+            entry.streamingPlatform = i % 2 == 0 ? null : "Netflix";
+            movieDao.insertWatched(entry);
+        }
+        movieDao.insertWatchlist(new WatchlistItem("Later"));
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void daoQueriesUseIndexes() throws Exception {
+        recording = true;
+
+        movieDao.getStatsSnapshot();
+        await(movieDao.suggestTheaterNames(50));
+        await(movieDao.suggestCities(50));
+        await(movieDao.suggestStreamingPlatforms(50));
+        await(movieDao.suggestCompanions(50));
+        movieDao.getPersonId("alice");
+        for (String whereToWatch : new String[]{null, "THEATER"}) {
+            for (String searchText : new String[]{null, "later"}) {
+                await(movieDao.observeWatchlist(new WatchlistQuery(whereToWatch, searchText, 20).compile()));
+            }
+        }
+        await(movieDao.listGenres());
+        await(movieDao.countGenres());
+        movieDao.getNotificationSettings();
+        await(movieDao.getNotificationSettingsLive());
+        movieDao.countWatched();
+        movieDao.countWatchlist();
+        movieDao.latestChangeSeq();
+        movieDao.getExportCheckpoint(ExportCheckpoint.BACKUP);
+        for (BackupSchema.Table<?> table : BackupSchema.TABLES) {
+            movieDao.exportCursor(table.exportQuery()).close();
+            movieDao.exportCursor(table.changedQuery(0, Long.MAX_VALUE)).close();
+            movieDao.exportCursor(table.deletedQuery(0, Long.MAX_VALUE)).close();
+            movieDao.exportCursor(table.contentKeysQuery()).close();
+            movieDao.exportCursor(table.withContentKeysQuery(Arrays.asList(1L, 2L))).close();
+        }
+        movieDao.getWatchedById(1);
+
+        for (WatchedSort sort : WatchedSort.values()) {
+            for (String locationType : new String[]{null, "THEATER"}) {
+                loadAllPages(new WatchedPagingSource(database, MoreExecutors.newDirectExecutorService(),
+                        new WatchedQuery(sort, locationType, null)));
+            }
+        }
+
+        recording = false;
+        assertQueryPlans();
+    }
+
+    // Walks forwards and backwards through every page, including from inside the NULL segment
+    private void loadAllPages(WatchedPagingSource source) throws Exception {
+        PagingSource.LoadResult.Page<WatchedListRow, WatchedListRow> page =
+                (PagingSource.LoadResult.Page<WatchedListRow, WatchedListRow>) source.loadFuture(
+                        new PagingSource.LoadParams.Refresh<>(null, 2, false)).get();
+        List<WatchedListRow> loaded = new ArrayList<>(page.getData());
+
+        while (page.getNextKey() != null) {
+            page = (PagingSource.LoadResult.Page<WatchedListRow, WatchedListRow>) source.loadFuture(
+                    new PagingSource.LoadParams.Append<>(page.getNextKey(), 2, false)).get();
+            loaded.addAll(page.getData());
+        }
+
+        for (WatchedListRow entry : loaded) {
+            source.loadFuture(new PagingSource.LoadParams.Prepend<>(entry, 2, false)).get();
+            source.loadFuture(new PagingSource.LoadParams.Refresh<>(entry, 2, false)).get();
+        }
+    }
+
+    private void assertQueryPlans() {
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+
+        for (Object[] statement : statements) {
+            String sql = (String) statement[0];
+            if (!sql.trim().toUpperCase().startsWith("SELECT") || sql.contains("room_") || isExempt(sql)) {
+                continue;
+            }
+            checked++;
+
+            List<?> args = (List<?>) statement[1];
+            try (Cursor cursor = database.getOpenHelper().getReadableDatabase()
+                    .query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql, args.toArray()))) {
+                int detailIndex = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    String detail = cursor.getString(detailIndex);
+                    boolean tableScan = detail.startsWith("SCAN") && !detail.contains("INDEX");
+                    if (detail.contains("USE TEMP B-TREE") || tableScan) {
+                        failures.add(detail + " <- " + sql);
+                    }
+                }
+            }
+        }
+
+        assertTrue("No DAO queries were recorded", checked > 0);
+        assertTrue(TextUtils.join("\n", failures), failures.isEmpty());
+    }
+
+    private static boolean isExempt(String sql) {
+        for (String[] exemption : EXEMPT) {
+            if (sql.contains(exemption[0])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Observes until the first value so Room runs the LiveData's query
+    private static <T> T await(LiveData<T> liveData) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<T> value = new ArrayList<>();
+        Observer<T> observer = v -> {
+            value.add(v);
+            latch.countDown();
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> liveData.observeForever(observer));
+        assertTrue("LiveData never emitted", latch.await(5, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> liveData.removeObserver(observer));
+        return value.get(0);
+    }
+}
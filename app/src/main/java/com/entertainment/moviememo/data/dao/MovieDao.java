@@ -1,135 +1,199 @@
 package com.entertainment.moviememo.data.dao;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.entertainment.moviememo.data.entities.WatchedEntry;
+import com.entertainment.moviememo.data.entities.WatchedCompanion;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
+import com.entertainment.moviememo.data.entities.CompanionStats;
+import com.entertainment.moviememo.data.entities.ExportCheckpoint;
 import com.entertainment.moviememo.data.entities.Genre;
-import com.entertainment.moviememo.data.entities.MonthCount;
 import com.entertainment.moviememo.data.entities.KeyCount;
-import com.entertainment.moviememo.data.entities.KeySum;
 import com.entertainment.moviememo.data.entities.NotificationSettings;
+import com.entertainment.moviememo.data.entities.Person;
+import com.entertainment.moviememo.data.entities.StatsRollup;
+import com.entertainment.moviememo.data.entities.StatsSnapshot;
 
 import java.util.List;
 
 @Dao
 public interface MovieDao {
     
-    // Watched Entries
+    // Watched Entries. Writes go through the default methods so watched_companions follows
+    // each entry's companions string.
     @Insert
-    long insertWatched(WatchedEntry entry);
+    long insertWatchedEntry(WatchedEntry entry);
     
     @Update
-    int updateWatched(WatchedEntry entry);
+    int updateWatchedEntry(WatchedEntry entry);
+    
+    @Transaction
+    default long insertWatched(WatchedEntry entry) {
+        long id = insertWatchedEntry(entry);
+        setCompanions(id, entry.companions);
+        return id;
+    }
+    
+    @Transaction
+    default int updateWatched(WatchedEntry entry) {
+        entry.updateDayOfWeek();
+        entry.updateContentKey();
+        int updated = updateWatchedEntry(entry);
+        if (updated > 0) {
+            setCompanions(entry.id, entry.companions);
+        }
+        return updated;
+    }
     
     @Delete
     int deleteWatched(WatchedEntry entry);
     
-    @Query("SELECT * FROM watched_entries ORDER BY watchedDate DESC, id DESC")
-    LiveData<List<WatchedEntry>> listWatched();
-    
-    @Query("SELECT * FROM watched_entries WHERE title LIKE :query OR notes LIKE :query ORDER BY watchedDate DESC")
-    LiveData<List<WatchedEntry>> searchWatched(String query);
-    
-    @Query("SELECT * FROM watched_entries WHERE locationType = :locationType ORDER BY watchedDate DESC, id DESC")
-    LiveData<List<WatchedEntry>> getWatchedByLocation(String locationType);
-    
-    // Sorting queries
-    @Query("SELECT * FROM watched_entries ORDER BY watchedDate DESC, id DESC")
-    LiveData<List<WatchedEntry>> listWatchedByDateDesc();
-    
-    @Query("SELECT * FROM watched_entries ORDER BY watchedDate ASC, id DESC")
-    LiveData<List<WatchedEntry>> listWatchedByDateAsc();
-    
-    @Query("SELECT * FROM watched_entries ORDER BY rating DESC, watchedDate DESC")
-    LiveData<List<WatchedEntry>> listWatchedByRatingDesc();
-    
-    @Query("SELECT * FROM watched_entries ORDER BY rating ASC, watchedDate DESC")
-    LiveData<List<WatchedEntry>> listWatchedByRatingAsc();
-    
-    @Query("SELECT * FROM watched_entries ORDER BY spendCents DESC, watchedDate DESC")
-    LiveData<List<WatchedEntry>> listWatchedBySpendDesc();
-    
-    @Query("SELECT * FROM watched_entries ORDER BY spendCents ASC, watchedDate DESC")
-    LiveData<List<WatchedEntry>> listWatchedBySpendAsc();
-    
-    @Query("SELECT COUNT(*) FROM watched_entries")
-    LiveData<Integer> countWatched();
-    
-    @Query("SELECT AVG(rating) FROM watched_entries WHERE rating IS NOT NULL")
-    LiveData<Double> avgRating();
-    
-    @Query("SELECT IFNULL(SUM(spendCents),0) FROM watched_entries")
-    LiveData<Integer> totalSpendCents();
-    
-    @Query("SELECT IFNULL(SUM(durationMin),0) FROM watched_entries WHERE durationMin IS NOT NULL")
-    LiveData<Integer> totalDurationMinutes();
-    
-    @Query("SELECT substr(watchedDate,1,7) AS ym, COUNT(*) AS cnt FROM watched_entries GROUP BY ym ORDER BY ym DESC")
-    LiveData<List<MonthCount>> moviesPerMonth();
-    
-    @Query("SELECT timeOfDay AS category, COUNT(*) AS cnt FROM watched_entries GROUP BY timeOfDay ORDER BY cnt DESC")
-    LiveData<List<KeyCount>> topTimeOfDay();
-    
-    @Query("SELECT genre AS category, COUNT(*) AS cnt FROM watched_entries WHERE genre IS NOT NULL GROUP BY genre ORDER BY cnt DESC")
-    LiveData<List<KeyCount>> topGenres();
-    
-    @Query("SELECT locationType AS category, IFNULL(SUM(spendCents),0) AS total FROM watched_entries GROUP BY locationType")
-    LiveData<List<KeySum>> spendByLocation();
-    
-    // New statistics queries
-    @Query("SELECT locationType AS category, COUNT(*) AS cnt FROM watched_entries GROUP BY locationType ORDER BY cnt DESC")
-    LiveData<List<KeyCount>> moviesByLocation();
-    
-    @Query("SELECT language AS category, COUNT(*) AS cnt FROM watched_entries WHERE language IS NOT NULL GROUP BY language ORDER BY cnt DESC")
-    LiveData<List<KeyCount>> moviesByLanguage();
-    
-    @Query("SELECT companions AS category, COUNT(*) AS cnt FROM watched_entries WHERE companions IS NOT NULL AND companions != '' GROUP BY companions ORDER BY cnt DESC")
-    LiveData<List<KeyCount>> moviesByCompanion();
-    
-    @Query("SELECT COUNT(*) FROM watched_entries WHERE substr(watchedDate,1,7) = substr(date('now'),1,7)")
-    LiveData<Integer> thisMonthCount();
-    
-    @Query("SELECT IFNULL(SUM(spendCents),0) FROM watched_entries WHERE substr(watchedDate,1,7) = substr(date('now'),1,7)")
-    LiveData<Integer> thisMonthSpendCents();
-    
-    @Query("SELECT IFNULL(AVG(spendCents),0) FROM watched_entries WHERE locationType = 'THEATER' AND spendCents IS NOT NULL")
-    LiveData<Integer> avgSpendCents();
-    
-    @Query("SELECT IFNULL(AVG(spendCents),0) FROM watched_entries WHERE locationType = 'THEATER' AND substr(watchedDate,1,7) = substr(date('now'),1,7) AND spendCents IS NOT NULL")
-    LiveData<Integer> thisMonthAvgSpendCents();
+    // Keyset-paged list queries are compiled from a WatchedQuery by WatchedPagingSource
+    @RawQuery
+    List<WatchedListRow> listWatchedRows(SupportSQLiteQuery query);
+    
+    @Query("SELECT * FROM watched_entries WHERE id = :id")
+    WatchedEntry getWatchedById(long id);
+    
+    @Query("DELETE FROM watched_entries WHERE id = :id")
+    int deleteWatchedById(long id);
+    
+    // Statistics for the Stats tab, read from the trigger-maintained stats_rollup table.
+    // All scalar metrics come from one pass over the total row and the current month's row.
+    @Query("SELECT " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' THEN cnt END), 0) AS watchedCount, " +
+           "SUM(CASE WHEN dimension = 'total' AND ratingCount > 0 THEN CAST(ratingSum AS REAL) / ratingCount END) AS averageRating, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' THEN spendSum END), 0) AS totalSpendCents, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' THEN durationSum END), 0) AS totalDurationMinutes, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'month' THEN cnt END), 0) AS thisMonthCount, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'month' THEN spendSum END), 0) AS thisMonthSpendCents, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' AND theaterSpendCount > 0 THEN theaterSpendSum / theaterSpendCount END), 0) AS avgSpendCents, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'month' AND theaterSpendCount > 0 THEN theaterSpendSum / theaterSpendCount END), 0) AS thisMonthAvgSpendCents, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' THEN weekdayCount END), 0) AS weekdayCount, " +
+           "IFNULL(SUM(CASE WHEN dimension = 'total' THEN weekendCount END), 0) AS weekendCount " +
+           "FROM stats_rollup " +
+           "WHERE (dimension = 'total' AND bucket = '') OR (dimension = 'month' AND bucket = substr(date('now'),1,7))")
+    StatsSnapshot statsTotals();
+    
+    // Every grouped bucket in display order: months newest first, the rest by count
+    @Query("SELECT * FROM stats_rollup WHERE dimension != 'total' AND cnt > 0 " +
+           "ORDER BY dimension, CASE WHEN dimension = 'month' THEN bucket END DESC, cnt DESC")
+    List<StatsRollup> listStatsBuckets();
+    
+    // Per-person totals from the companions junction. With a single MAX() aggregate SQLite takes
+    // the bare title column from the row holding that max, i.e. the latest movie watched together.
+    @Query("SELECT people.id AS personId, people.name AS name, COUNT(*) AS watchedCount, " +
+           "IFNULL(SUM(watched_entries.spendCents), 0) AS spendCents, " +
+           "MAX(watched_entries.watchedDate) AS lastWatchedDate, watched_entries.title AS lastWatchedTitle " +
+           "FROM watched_companions " +
+           "JOIN people ON people.id = watched_companions.personId " +
+           "JOIN watched_entries ON watched_entries.id = watched_companions.watchedId " +
+           "GROUP BY watched_companions.personId ORDER BY watchedCount DESC, people.name")
+    List<CompanionStats> companionStats();
+    
+    @Transaction
+    default StatsSnapshot getStatsSnapshot() {
+        StatsSnapshot snapshot = statsTotals();
+        for (StatsRollup bucket : listStatsBuckets()) {
+            snapshot.addBucket(bucket);
+        }
+        snapshot.companionStats = companionStats();
+        for (CompanionStats companion : snapshot.companionStats) {
+            snapshot.moviesByCompanion.add(new KeyCount(companion.name, companion.watchedCount));
+        }
+        return snapshot;
+    }
+    
+    // Companions
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertPerson(Person person);
     
-    @Query("SELECT COUNT(*) FROM watched_entries WHERE CAST(strftime('%w', watchedDate) AS INTEGER) BETWEEN 1 AND 5")
-    LiveData<Integer> weekdayCount();
+    @Query("SELECT id FROM people WHERE name = :name")
+    long getPersonId(String name);
     
-    @Query("SELECT COUNT(*) FROM watched_entries WHERE CAST(strftime('%w', watchedDate) AS INTEGER) IN (0, 6)")
-    LiveData<Integer> weekendCount();
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertCompanion(WatchedCompanion companion);
+    
+    @Query("DELETE FROM watched_companions WHERE watchedId = :watchedId")
+    void clearCompanions(long watchedId);
+    
+    // Replaces the people linked to a watched entry with those named in its companions string
+    @Transaction
+    default void setCompanions(long watchedId, String companions) {
+        clearCompanions(watchedId);
+        for (String name : Person.splitNames(companions)) {
+            long personId = insertPerson(new Person(name));
+            if (personId == -1) {
+                personId = getPersonId(name);
+            }
+            insertCompanion(new WatchedCompanion(watchedId, personId));
+        }
+    }
     
     // Watchlist Items
     @Insert
     long insertWatchlist(WatchlistItem item);
     
     @Update
-    int updateWatchlist(WatchlistItem item);
+    int updateWatchlistItem(WatchlistItem item);
+    
+    // Edits change the title in place, so the content key is refreshed here
+    default int updateWatchlist(WatchlistItem item) {
+        item.updateContentKey();
+        return updateWatchlistItem(item);
+    }
     
     @Delete
     int deleteWatchlist(WatchlistItem item);
     
-    @Query("SELECT * FROM watchlist_items ORDER BY createdAt DESC")
-    LiveData<List<WatchlistItem>> listWatchlist();
-    
-    @Query("SELECT * FROM watchlist_items WHERE title LIKE :query OR notes LIKE :query ORDER BY createdAt DESC")
-    LiveData<List<WatchlistItem>> searchWatchlist(String query);
+    // Moves a watchlist item to watched in one commit, so it is never in both lists or neither
+    @Transaction
+    default long moveToWatched(WatchlistItem item, WatchedEntry entry) {
+        long id = insertWatched(entry);
+        deleteWatchlist(item);
+        return id;
+    }
+    
+    // Filtered, searched watchlist compiled from a WatchlistQuery
+    @RawQuery(observedEntities = WatchlistItem.class)
+    LiveData<List<WatchlistItem>> observeWatchlist(SupportSQLiteQuery query);
+    
+    // Autocomplete suggestions: distinct stored values, most used first. Each groups over an
+    // index on its column, so only the distinct values get counted and sorted.
+    @Query("SELECT theaterName FROM watched_entries WHERE theaterName IS NOT NULL AND theaterName != '' " +
+           "GROUP BY theaterName ORDER BY COUNT(*) DESC, theaterName LIMIT :limit")
+    LiveData<List<String>> suggestTheaterNames(int limit);
+    
+    @Query("SELECT city FROM watched_entries WHERE city IS NOT NULL AND city != '' " +
+           "GROUP BY city ORDER BY COUNT(*) DESC, city LIMIT :limit")
+    LiveData<List<String>> suggestCities(int limit);
+    
+    @Query("SELECT platform FROM (" +
+           "SELECT streamingPlatform AS platform FROM watched_entries WHERE streamingPlatform IS NOT NULL AND streamingPlatform != '' " +
+           "UNION ALL " +
+           "SELECT streamingPlatform FROM watchlist_items WHERE streamingPlatform IS NOT NULL AND streamingPlatform != ''" +
+           ") GROUP BY platform ORDER BY COUNT(*) DESC, platform LIMIT :limit")
+    LiveData<List<String>> suggestStreamingPlatforms(int limit);
+    
+    @Query("SELECT people.name FROM watched_companions JOIN people ON people.id = watched_companions.personId " +
+           "GROUP BY watched_companions.personId ORDER BY COUNT(*) DESC, people.name LIMIT :limit")
+    LiveData<List<String>> suggestCompanions(int limit);
     
     // Genres
     @Insert(onConflict = OnConflictStrategy.IGNORE)
-    void addGenre(Genre genre);
+    long addGenre(Genre genre);
     
     @Query("SELECT * FROM genres ORDER BY name ASC")
     LiveData<List<Genre>> listGenres();
@@ -138,14 +202,14 @@ public interface MovieDao {
     LiveData<Integer> countGenres();
 
     @Query("DELETE FROM watched_entries")
-    void clearAllWatched();
+    int clearAllWatched();
 
     @Query("DELETE FROM watchlist_items")
-    void clearAllWatchlist();
+    int clearAllWatchlist();
     
     // Notification Settings
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertNotificationSettings(NotificationSettings settings);
+    long insertNotificationSettings(NotificationSettings settings);
     
     @Update
     int updateNotificationSettings(NotificationSettings settings);
@@ -156,16 +220,64 @@ public interface MovieDao {
     @Query("SELECT * FROM notification_settings WHERE id = 1")
     LiveData<NotificationSettings> getNotificationSettingsLive();
     
-    // Synchronous methods for export/import
-    @Query("SELECT * FROM watched_entries ORDER BY watchedDate DESC, id DESC")
-    List<WatchedEntry> getAllWatchedSync();
+    // Row counts that let an export estimate how long it has left
+    @Query("SELECT COUNT(*) FROM watched_entries")
+    int countWatched();
     
-    @Query("SELECT * FROM watchlist_items ORDER BY createdAt DESC")
-    List<WatchlistItem> getAllWatchlistSync();
+    @Query("SELECT COUNT(*) FROM watchlist_items")
+    int countWatchlist();
     
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertWatchedBulk(List<WatchedEntry> entries);
+    // Streams an ExportQuery built from BackupSchema, so the columns a backup carries are listed
+    // only there; the caller closes the cursor
+    @RawQuery
+    Cursor exportCursor(SupportSQLiteQuery query);
+    
+    // Change log for delta backups, read through ExportQuery.changed and ExportQuery.deleted
+    @Query("SELECT IFNULL(MAX(seq), 0) FROM change_log")
+    long latestChangeSeq();
+    
+    @Query("SELECT seq FROM export_checkpoints WHERE name = :name")
+    Long getExportCheckpoint(String name);
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertWatchlistBulk(List<WatchlistItem> items);
+    void setExportCheckpoint(ExportCheckpoint checkpoint);
+    
+    @Query("DELETE FROM change_log WHERE seq <= :seq")
+    int pruneChangeLog(long seq);
+    
+    // Records that a backup covers every change up to seq; older log entries are no longer needed
+    @Transaction
+    default void commitExportCheckpoint(String name, long seq) {
+        setExportCheckpoint(new ExportCheckpoint(name, seq));
+        pruneChangeLog(seq);
+    }
+    
+    @Query("DELETE FROM watched_entries WHERE id IN (:ids)")
+    int deleteWatchedByIds(List<Long> ids);
+    
+    @Query("DELETE FROM watchlist_items WHERE id IN (:ids)")
+    int deleteWatchlistByIds(List<Long> ids);
+    
+    // Imports. A row whose id is already stored is updated in place rather than REPLACEd, since
+    // REPLACE's implicit delete fires no delete triggers and would leave stale FTS terms and
+    // change-log state behind; every other row is inserted, keeping any id it carries.
+    @Transaction
+    default void upsertWatchedBulk(List<WatchedEntry> entries) {
+        for (WatchedEntry entry : entries) {
+            long id = entry.id;
+            if (id == 0 || updateWatchedEntry(entry) == 0) {
+                id = insertWatchedEntry(entry);
+            }
+            setCompanions(id, entry.companions);
+        }
+    }
+    
+    @Transaction
+    default void upsertWatchlistBulk(List<WatchlistItem> items) {
+        for (WatchlistItem item : items) {
+            if (item.id == 0 || updateWatchlistItem(item) == 0) {
+                insertWatchlist(item);
+            }
+        }
+    }
 }
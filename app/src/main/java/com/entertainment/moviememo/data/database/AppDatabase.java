@@ -5,40 +5,57 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.text.TextUtils;
 
 import com.entertainment.moviememo.data.dao.MovieDao;
+import com.entertainment.moviememo.data.entities.ChangeLogEntry;
+import com.entertainment.moviememo.data.entities.ExportCheckpoint;
 import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
 import com.entertainment.moviememo.data.entities.Genre;
 import com.entertainment.moviememo.data.entities.NotificationSettings;
+import com.entertainment.moviememo.data.entities.Person;
+import com.entertainment.moviememo.data.entities.StatsRollup;
+import com.entertainment.moviememo.data.entities.WatchedCompanion;
+import com.entertainment.moviememo.data.entities.WatchedEntryFts;
+import com.entertainment.moviememo.data.entities.WatchlistItemFts;
+import com.entertainment.moviememo.utils.ContentKey;
+
+import java.io.File;
+import java.io.IOException;
 
 @Database(
-    entities = {WatchedEntry.class, WatchlistItem.class, Genre.class, NotificationSettings.class},
-    version = 8,
+    entities = {WatchedEntry.class, WatchlistItem.class, Genre.class, NotificationSettings.class,
+            WatchedEntryFts.class, WatchlistItemFts.class, StatsRollup.class, Person.class, WatchedCompanion.class,
+            ChangeLogEntry.class, ExportCheckpoint.class},
+    version = AppDatabase.VERSION,
     exportSchema = false
 )
 public abstract class AppDatabase extends RoomDatabase {
     
     public abstract MovieDao movieDao();
     
+    public static final String DATABASE_NAME = "movie_memo_database";
+    // Schema version; a file with a lower one is migrated when opened
+    public static final int VERSION = 18;
+    
     private static volatile AppDatabase INSTANCE;
     
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
-                        context.getApplicationContext(),
-                        AppDatabase.class,
-                        "movie_memo_database"
-                    )
-                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8)
+                    INSTANCE = builder(context, DATABASE_NAME)
                     .addCallback(new RoomDatabase.Callback() {
                         @Override
                         public void onCreate(SupportSQLiteDatabase db) {
                             super.onCreate(db);
+                            StatsRollupSql.createTriggers(db);
+                            ChangeLogSql.createTriggers(db);
                             // Seed default genres on first creation
                             seedDefaultGenres(context);
                         }
@@ -50,6 +67,42 @@ public abstract class AppDatabase extends RoomDatabase {
         return INSTANCE;
     }
     
+    // Opens the named database file in the app's database directory, migrating it if it is older
+    static RoomDatabase.Builder<AppDatabase> builder(Context context, String name) {
+        return Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, name)
+                .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18);
+    }
+    
+    // Closes the database, moves replacement into its place with a single rename and reopens it.
+    // The caller stops everything still using the old instance first. If the rename fails the old
+    // file is left as it was and is reopened instead.
+    public static void replaceWith(Context context, File replacement) throws IOException {
+        synchronized (AppDatabase.class) {
+            File target = context.getDatabasePath(DATABASE_NAME);
+            if (INSTANCE != null) {
+                // Fold the WAL into the main file, so deleting it below loses nothing
+                try (Cursor cursor = INSTANCE.getOpenHelper().getWritableDatabase()
+                        .query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                    cursor.moveToFirst();
+                }
+                INSTANCE.close();
+                INSTANCE = null;
+            }
+            // Left next to the new file, these would be applied to it
+            for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+                File sidecar = new File(target.getPath() + suffix);
+                if (sidecar.exists() && !sidecar.delete()) {
+                    throw new IOException("Couldn't delete " + sidecar);
+                }
+            }
+            boolean moved = replacement.renameTo(target);
+            getDatabase(context).getOpenHelper().getWritableDatabase();
+            if (!moved) {
+                throw new IOException("Couldn't move " + replacement + " into place");
+            }
+        }
+    }
+    
     private static void seedDefaultGenres(Context context) {
         // This will be handled by the repository
         // We'll create a background thread to insert default genres
@@ -146,4 +199,200 @@ public abstract class AppDatabase extends RoomDatabase {
             // Existing records will have NULL values, which is fine
         }
     };
+    
+    // Migration from version 8 to 9: Add FTS4 search tables mirroring watched_entries and watchlist_items
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            createFtsTable(database, "watched_entries_fts", "watched_entries");
+            createFtsTable(database, "watchlist_items_fts", "watchlist_items");
+        }
+    };
+    
+    // Migration from version 9 to 10: Add trigger-maintained stats_rollup table
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `stats_rollup` (" +
+                    "`dimension` TEXT NOT NULL, " +
+                    "`bucket` TEXT NOT NULL, " +
+                    "`cnt` INTEGER NOT NULL DEFAULT 0, " +
+                    "`ratingSum` INTEGER NOT NULL DEFAULT 0, " +
+                    "`ratingCount` INTEGER NOT NULL DEFAULT 0, " +
+                    "`spendSum` INTEGER NOT NULL DEFAULT 0, " +
+                    "`durationSum` INTEGER NOT NULL DEFAULT 0, " +
+                    "`theaterSpendSum` INTEGER NOT NULL DEFAULT 0, " +
+                    "`theaterSpendCount` INTEGER NOT NULL DEFAULT 0, " +
+                    "`weekdayCount` INTEGER NOT NULL DEFAULT 0, " +
+                    "`weekendCount` INTEGER NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY(`dimension`, `bucket`))");
+            StatsRollupSql.createTriggers(database);
+            // Seed the counters from existing entries
+            StatsRollupSql.rebuild(database);
+        }
+    };
+    
+    // Migration from version 10 to 11: Add a day-of-week column derived from watchedDate for the rollup triggers
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE watched_entries ADD COLUMN dayOfWeek INTEGER NOT NULL DEFAULT -1");
+            
+            // Rollup triggers are recreated below to read dayOfWeek; drop them so the backfill doesn't churn them
+            StatsRollupSql.dropTriggers(database);
+            database.execSQL("UPDATE watched_entries SET dayOfWeek = IFNULL(CAST(strftime('%w', watchedDate) AS INTEGER), -1)");
+            
+            StatsRollupSql.createTriggers(database);
+            StatsRollupSql.rebuild(database);
+        }
+    };
+    
+    // Migration from version 11 to 12: Composite indexes for every watched-list sort and filter
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Superseded by (watchedDate, id)
+            database.execSQL("DROP INDEX IF EXISTS `index_watched_entries_watchedDate`");
+            
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_watchedDate_id` ON `watched_entries` (`watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_companions` ON `watched_entries` (`companions`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_rating_watchedDate_id` ON `watched_entries` (`rating`, `watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_rating_asc_watchedDate_desc_id_desc` ON `watched_entries` (`rating` ASC, `watchedDate` DESC, `id` DESC)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_spendCents_watchedDate_id` ON `watched_entries` (`spendCents`, `watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_spendCents_asc_watchedDate_desc_id_desc` ON `watched_entries` (`spendCents` ASC, `watchedDate` DESC, `id` DESC)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_locationType_watchedDate_id` ON `watched_entries` (`locationType`, `watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_locationType_rating_watchedDate_id` ON `watched_entries` (`locationType`, `rating`, `watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_locationType_rating_asc_watchedDate_desc_id_desc` ON `watched_entries` (`locationType` ASC, `rating` ASC, `watchedDate` DESC, `id` DESC)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_locationType_spendCents_watchedDate_id` ON `watched_entries` (`locationType`, `spendCents`, `watchedDate`, `id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_locationType_spendCents_asc_watchedDate_desc_id_desc` ON `watched_entries` (`locationType` ASC, `spendCents` ASC, `watchedDate` DESC, `id` DESC)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watchlist_items_createdAt` ON `watchlist_items` (`createdAt`)");
+        }
+    };
+    
+    // Migration from version 12 to 13: Index the watchlist where-to-watch filter
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watchlist_items_whereToWatch_createdAt` ON `watchlist_items` (`whereToWatch`, `createdAt`)");
+        }
+    };
+    
+    // Migration from version 13 to 14: Split companions strings into people and watched_companions
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `people` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT NOT NULL COLLATE NOCASE)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_people_name` ON `people` (`name`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `watched_companions` (`watchedId` INTEGER NOT NULL, " +
+                    "`personId` INTEGER NOT NULL, PRIMARY KEY(`watchedId`, `personId`), " +
+                    "FOREIGN KEY(`watchedId`) REFERENCES `watched_entries`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                    "FOREIGN KEY(`personId`) REFERENCES `people`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_companions_personId_watchedId` " +
+                    "ON `watched_companions` (`personId`, `watchedId`)");
+            
+            // One (watchedId, name) row per comma-separated name, trimmed like Person.splitNames
+            String split = "WITH RECURSIVE split(watchedId, name, rest) AS (" +
+                    "SELECT id, NULL, companions || ',' FROM watched_entries WHERE companions IS NOT NULL " +
+                    "UNION ALL SELECT watchedId, trim(substr(rest, 1, instr(rest, ',') - 1)), substr(rest, instr(rest, ',') + 1) " +
+                    "FROM split WHERE rest != '') ";
+            database.execSQL("INSERT OR IGNORE INTO people (name) " + split +
+                    "SELECT name FROM split WHERE name != '' ORDER BY watchedId");
+            database.execSQL("INSERT OR IGNORE INTO watched_companions (watchedId, personId) " + split +
+                    "SELECT split.watchedId, people.id FROM split JOIN people ON people.name = split.name WHERE split.name != ''");
+            
+            database.execSQL("DROP INDEX IF EXISTS `index_watched_entries_companions`");
+        }
+    };
+    
+    // Migration from version 14 to 15: Index the columns form autocomplete suggests values from
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_theaterName` ON `watched_entries` (`theaterName`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_city` ON `watched_entries` (`city`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_streamingPlatform` ON `watched_entries` (`streamingPlatform`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watchlist_items_streamingPlatform` ON `watchlist_items` (`streamingPlatform`)");
+        }
+    };
+    
+    // Migration from version 15 to 16: Trigger-maintained change_log and checkpoints for delta backups
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `change_log` (`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`tableName` TEXT NOT NULL, `rowId` INTEGER NOT NULL, `op` TEXT NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_change_log_tableName_rowId` ON `change_log` (`tableName`, `rowId`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `export_checkpoints` (`name` TEXT NOT NULL, " +
+                    "`seq` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+            // Existing rows aren't logged; a delta chain starts from the next full backup
+            ChangeLogSql.createTriggers(database);
+        }
+    };
+    
+    // Migration from version 16 to 17: Indexed content keys that imports match existing rows on
+    static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE watched_entries ADD COLUMN contentKey INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE watchlist_items ADD COLUMN contentKey INTEGER NOT NULL DEFAULT 0");
+            
+            // The keys aren't backed up, so the backfill shouldn't put every row in the change log
+            StatsRollupSql.dropTriggers(database);
+            ChangeLogSql.dropTriggers(database);
+            backfillContentKeys(database, "watched_entries", "title", "watchedDate", "locationType");
+            backfillContentKeys(database, "watchlist_items", "title");
+            StatsRollupSql.createTriggers(database);
+            ChangeLogSql.createTriggers(database);
+            
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watched_entries_contentKey` ON `watched_entries` (`contentKey`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_watchlist_items_contentKey` ON `watchlist_items` (`contentKey`)");
+        }
+    };
+    
+    // Migration from version 17 to 18: Drop the REPLACE-only stats trigger now that imports update rows in place
+    static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("DROP TRIGGER IF EXISTS stats_rollup_before_insert");
+        }
+    };
+    
+    // Sets each row's contentKey the way its entity computes it, from the given columns in order
+    private static void backfillContentKeys(SupportSQLiteDatabase database, String table, String... columns) {
+        try (SupportSQLiteStatement update = database.compileStatement("UPDATE " + table + " SET contentKey = ? WHERE id = ?");
+             Cursor cursor = database.query("SELECT id, " + TextUtils.join(", ", columns) + " FROM " + table)) {
+            String[] parts = new String[columns.length];
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = cursor.getString(i + 1);
+                }
+                update.bindLong(1, ContentKey.of(parts));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } catch (IOException e) {
+            // Only from closing the statement
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Same table and content-sync triggers Room generates for an @Fts4(contentEntity) entity,
+    // followed by a rebuild to index the rows that already exist
+    private static void createFtsTable(SupportSQLiteDatabase database, String ftsTable, String contentTable) {
+        database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `" + ftsTable + "` USING FTS4(" +
+                "`title` TEXT, `notes` TEXT, tokenize=unicode61, content=`" + contentTable + "`)");
+        
+        String triggerPrefix = "room_fts_content_sync_" + ftsTable;
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerPrefix + "_BEFORE_UPDATE BEFORE UPDATE ON `" + contentTable + "` " +
+                "BEGIN DELETE FROM `" + ftsTable + "` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerPrefix + "_BEFORE_DELETE BEFORE DELETE ON `" + contentTable + "` " +
+                "BEGIN DELETE FROM `" + ftsTable + "` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerPrefix + "_AFTER_UPDATE AFTER UPDATE ON `" + contentTable + "` " +
+                "BEGIN INSERT INTO `" + ftsTable + "`(`docid`, `title`, `notes`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`notes`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS " + triggerPrefix + "_AFTER_INSERT AFTER INSERT ON `" + contentTable + "` " +
+                "BEGIN INSERT INTO `" + ftsTable + "`(`docid`, `title`, `notes`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`notes`); END");
+        
+        database.execSQL("INSERT INTO `" + ftsTable + "`(`" + ftsTable + "`) VALUES('rebuild')");
+    }
 }
@@ -0,0 +1,38 @@
+package com.entertainment.moviememo.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.Locale;
+
+// Triggers that record every insert, update and delete on the backed-up tables in change_log.
+// Each change first drops the row's previous entry, so the log holds one entry per changed row.
+final class ChangeLogSql {
+
+    private static final String[] TABLES = {"watched_entries", "watchlist_items"};
+
+    private ChangeLogSql() {}
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        for (String table : TABLES) {
+            db.execSQL(trigger(table, "INSERT", "NEW"));
+            db.execSQL(trigger(table, "UPDATE", "NEW"));
+            db.execSQL(trigger(table, "DELETE", "OLD"));
+        }
+    }
+
+    static void dropTriggers(SupportSQLiteDatabase db) {
+        for (String table : TABLES) {
+            for (String op : new String[]{"insert", "update", "delete"}) {
+                db.execSQL("DROP TRIGGER IF EXISTS change_log_" + table + "_" + op);
+            }
+        }
+    }
+
+    private static String trigger(String table, String op, String row) {
+        return "CREATE TRIGGER IF NOT EXISTS change_log_" + table + "_" + op.toLowerCase(Locale.ROOT) +
+                " AFTER " + op + " ON " + table + " BEGIN " +
+                "DELETE FROM change_log WHERE tableName = '" + table + "' AND rowId = " + row + ".id; " +
+                "INSERT INTO change_log (tableName, rowId, op) VALUES ('" + table + "', " + row + ".id, '" + op + "'); " +
+                "END";
+    }
+}
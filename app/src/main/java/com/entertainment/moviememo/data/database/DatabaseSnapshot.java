@@ -0,0 +1,139 @@
+package com.entertainment.moviememo.data.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// The database file itself as a backup. capture() writes a consistent copy of the live file;
+// a restore copies a snapshot to stagedFile(), checks and opens it with validateStaged(), which
+// migrates an older one to VERSION, and swaps it in with commitStaged().
+public final class DatabaseSnapshot {
+
+    static final String STAGED_NAME = AppDatabase.DATABASE_NAME + "-snapshot";
+
+    private static final byte[] SQLITE_HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    // Offset of the big-endian user_version in the file header, where Room keeps the schema version
+    private static final int USER_VERSION_OFFSET = 60;
+    // Checkpoints tried before giving up on a database that keeps being written to
+    private static final int CHECKPOINT_ATTEMPTS = 5;
+
+    private DatabaseSnapshot() {}
+
+    // Writes a copy of the live database to target, which must be missing or empty
+    public static void capture(Context context, File target) throws IOException {
+        SupportSQLiteDatabase db = AppDatabase.getDatabase(context).getOpenHelper().getWritableDatabase();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // SQLite 3.27+ copies one read transaction into a new, compacted file without blocking writers
+            db.execSQL("VACUUM INTO ?", new Object[]{target.getPath()});
+            return;
+        }
+
+        // Otherwise copy the file while holding the write lock with an empty WAL: no frames can be
+        // written, so no checkpoint can change the file underneath the copy
+        File live = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+        File wal = new File(live.getPath() + "-wal");
+        for (int attempt = 0; attempt < CHECKPOINT_ATTEMPTS; attempt++) {
+            try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                cursor.moveToFirst();
+            }
+            db.beginTransaction();
+            try {
+                // A write between the checkpoint and the lock is only in the WAL; try again
+                if (wal.length() == 0) {
+                    copy(live, target);
+                    return;
+                }
+            } finally {
+                db.endTransaction();
+            }
+        }
+        throw new IOException("The database kept changing while taking a snapshot");
+    }
+
+    // Where a restore puts the snapshot before validateStaged(); anything already there is deleted
+    public static File stagedFile(Context context) {
+        context.deleteDatabase(STAGED_NAME);
+        return context.getDatabasePath(STAGED_NAME);
+    }
+
+    // Fails unless the staged file is a MovieMemo database no newer than VERSION that passes
+    // SQLite's integrity check. Opening it runs any migrations and Room's schema check, so what
+    // commitStaged() swaps in opens as it is.
+    public static void validateStaged(Context context) throws IOException {
+        File staged = context.getDatabasePath(STAGED_NAME);
+        int version = readUserVersion(staged);
+        if (version < 1) {
+            throw new IOException("Not a MovieMemo database");
+        }
+        if (version > AppDatabase.VERSION) {
+            throw new IOException("Snapshot is from a newer version of the app (schema " + version +
+                    ", this app has " + AppDatabase.VERSION + ")");
+        }
+
+        // One file without a WAL, so the rename in commitStaged() moves all of it
+        AppDatabase database = AppDatabase.builder(context, STAGED_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.TRUNCATE)
+                .build();
+        try (Cursor cursor = database.getOpenHelper().getWritableDatabase().query("PRAGMA integrity_check")) {
+            cursor.moveToFirst();
+            if (!"ok".equals(cursor.getString(0))) {
+                throw new IOException("Snapshot failed the integrity check: " + cursor.getString(0));
+            }
+        } catch (IllegalStateException e) {
+            // Room's schema check or a missing migration
+            throw new IOException("Snapshot doesn't match this app's database: " + e.getMessage(), e);
+        } finally {
+            database.close();
+        }
+    }
+
+    // Replaces the live database with the validated snapshot. Stop everything using it first.
+    public static void commitStaged(Context context) throws IOException {
+        try {
+            AppDatabase.replaceWith(context, context.getDatabasePath(STAGED_NAME));
+        } finally {
+            discardStaged(context);
+        }
+    }
+
+    public static void discardStaged(Context context) {
+        context.deleteDatabase(STAGED_NAME);
+    }
+
+    private static int readUserVersion(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] header = new byte[SQLITE_HEADER.length];
+            if (in.length() < USER_VERSION_OFFSET + 4) {
+                return 0;
+            }
+            in.readFully(header);
+            if (!Arrays.equals(header, SQLITE_HEADER)) {
+                return 0;
+            }
+            in.seek(USER_VERSION_OFFSET);
+            return in.readInt();
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (FileChannel in = new FileInputStream(from).getChannel();
+             FileChannel out = new FileOutputStream(to).getChannel()) {
+            long size = in.size();
+            for (long position = 0; position < size; ) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
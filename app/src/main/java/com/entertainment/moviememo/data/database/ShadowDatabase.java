@@ -0,0 +1,157 @@
+package com.entertainment.moviememo.data.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// A fresh database file built next to the live one, for a restore that replaces the whole library.
+// Rows go in through its own AppDatabase with secondary indexes and triggers dropped and without
+// syncing to disk; finishLoad() then builds those back and recomputes what the triggers maintain,
+// verify() checks the result, and commit() swaps the file in through AppDatabase.replaceWith.
+// The live database is untouched until that rename, so an interrupted restore only leaves a stale
+// shadow file behind, which the next create() deletes.
+public final class ShadowDatabase {
+
+    static final String NAME = AppDatabase.DATABASE_NAME + "-restore";
+
+    // Copied from the live database as they are, since backups don't hold them
+    private static final String[] KEPT_TABLES = {"genres", "notification_settings"};
+    // Full-text tables rebuilt from their content tables once the rows are in
+    private static final String[] FTS_TABLES = {"watched_entries_fts", "watchlist_items_fts"};
+
+    private final Context context;
+    private final AppDatabase database;
+    // CREATE INDEX and CREATE TRIGGER statements dropped for the load, in schema order
+    private final List<String> deferredSql = new ArrayList<>();
+
+    private ShadowDatabase(Context context, AppDatabase database) {
+        this.context = context;
+        this.database = database;
+    }
+
+    public static ShadowDatabase create(Context context) {
+        Context appContext = context.getApplicationContext();
+        appContext.deleteDatabase(NAME);
+        // One file without a WAL, so the rename in commit() moves all of it
+        AppDatabase database = Room.databaseBuilder(appContext, AppDatabase.class, NAME)
+                .setJournalMode(RoomDatabase.JournalMode.TRUNCATE)
+                .build();
+        ShadowDatabase shadow = new ShadowDatabase(appContext, database);
+        try {
+            shadow.prepareLoad();
+        } catch (RuntimeException e) {
+            shadow.discard();
+            throw e;
+        }
+        return shadow;
+    }
+
+    // Load rows through this instance's DAO
+    public AppDatabase getDatabase() {
+        return database;
+    }
+
+    private void prepareLoad() {
+        // Room creates the schema on first open
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+        // Unique indexes stay, since inserts rely on them to find conflicts
+        List<String> drops = new ArrayList<>();
+        try (Cursor cursor = db.query("SELECT type, name, sql FROM sqlite_master WHERE type IN ('index', 'trigger') " +
+                "AND sql IS NOT NULL AND sql NOT LIKE 'CREATE UNIQUE%'")) {
+            while (cursor.moveToNext()) {
+                drops.add("DROP " + cursor.getString(0) + " `" + cursor.getString(1) + "`");
+                deferredSql.add(cursor.getString(2));
+            }
+        }
+        for (String drop : drops) {
+            db.execSQL(drop);
+        }
+
+        // Nothing is lost if the shadow doesn't survive a crash; finishLoad() syncs it
+        db.execSQL("PRAGMA synchronous = OFF");
+
+        File live = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+        if (live.exists()) {
+            db.execSQL("ATTACH DATABASE ? AS live", new Object[]{live.getPath()});
+            try {
+                for (String table : KEPT_TABLES) {
+                    db.execSQL("INSERT INTO main." + table + " SELECT * FROM live." + table);
+                }
+            } finally {
+                db.execSQL("DETACH DATABASE live");
+            }
+        }
+    }
+
+    // Builds the indexes and triggers back in one transaction, then rebuilds the full-text
+    // indexes and stats_rollup from the loaded rows. change_log starts empty, so the next delta
+    // backup needs a full backup first.
+    public void finishLoad() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        db.execSQL("PRAGMA synchronous = FULL");
+        database.runInTransaction(() -> {
+            for (String sql : deferredSql) {
+                db.execSQL(sql);
+            }
+            StatsRollupSql.createTriggers(db);
+            ChangeLogSql.createTriggers(db);
+            for (String ftsTable : FTS_TABLES) {
+                db.execSQL("INSERT INTO `" + ftsTable + "`(`" + ftsTable + "`) VALUES('rebuild')");
+            }
+            StatsRollupSql.rebuild(db);
+        });
+    }
+
+    // Fails unless each table has the expected number of rows and SQLite finds nothing wrong
+    public void verify(Map<String, Integer> expectedRows) throws IOException {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (Map.Entry<String, Integer> expected : expectedRows.entrySet()) {
+            try (Cursor cursor = db.query("SELECT COUNT(*) FROM " + expected.getKey())) {
+                cursor.moveToFirst();
+                if (cursor.getInt(0) != expected.getValue()) {
+                    throw new IOException("Restored " + expected.getKey() + " has " + cursor.getInt(0) +
+                            " rows, expected " + expected.getValue());
+                }
+            }
+        }
+        try (Cursor cursor = db.query("PRAGMA integrity_check")) {
+            cursor.moveToFirst();
+            if (!"ok".equals(cursor.getString(0))) {
+                throw new IOException("Restored database failed the integrity check: " + cursor.getString(0));
+            }
+        }
+        try (Cursor cursor = db.query("PRAGMA foreign_key_check")) {
+            if (cursor.moveToFirst()) {
+                throw new IOException("Restored database has rows in " + cursor.getString(0) +
+                        " pointing at missing rows");
+            }
+        }
+    }
+
+    // Replaces the live database with this one. Stop everything using the live database first.
+    public void commit() throws IOException {
+        database.close();
+        try {
+            AppDatabase.replaceWith(context, context.getDatabasePath(NAME));
+        } finally {
+            // The journal the shadow was built with, and the file itself if the swap failed
+            context.deleteDatabase(NAME);
+        }
+    }
+
+    // Drops the shadow without touching the live database
+    public void discard() {
+        database.close();
+        context.deleteDatabase(NAME);
+    }
+}
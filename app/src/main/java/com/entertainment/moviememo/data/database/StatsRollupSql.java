@@ -0,0 +1,106 @@
+package com.entertainment.moviememo.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.regex.Pattern;
+
+// SQL for the stats_rollup table: triggers on watched_entries keep one row of counters per
+// (dimension, bucket) up to date, so the Stats tab reads a few small rows instead of
+// aggregating the whole table. {column} placeholders are expanded per trigger.
+final class StatsRollupSql {
+
+    // Counter column -> per-row contribution
+    private static final String[][] METRICS = {
+        {"cnt", "1"},
+        {"ratingSum", "IFNULL({rating}, 0)"},
+        {"ratingCount", "{rating} IS NOT NULL"},
+        {"spendSum", "IFNULL({spendCents}, 0)"},
+        {"durationSum", "IFNULL({durationMin}, 0)"},
+        {"theaterSpendSum", "CASE WHEN {locationType} = 'THEATER' THEN IFNULL({spendCents}, 0) ELSE 0 END"},
+        {"theaterSpendCount", "{locationType} = 'THEATER' AND {spendCents} IS NOT NULL"},
+        {"weekdayCount", "{dayOfWeek} BETWEEN 1 AND 5"},
+        {"weekendCount", "{dayOfWeek} IN (0, 6)"}
+    };
+
+    // Dimension -> bucket expression; rows whose bucket is NULL are not counted for that dimension
+    private static final String[][] DIMENSIONS = {
+        {"total", "''"},
+        {"month", "substr({watchedDate}, 1, 7)"},
+        {"genre", "{genre}"},
+        {"location", "{locationType}"},
+        {"language", "{language}"},
+        {"timeOfDay", "{timeOfDay}"}
+    };
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)\\}");
+
+    private StatsRollupSql() {}
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS stats_rollup_after_insert AFTER INSERT ON watched_entries " +
+                "BEGIN " + apply(1, "NEW.$1") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS stats_rollup_after_update AFTER UPDATE ON watched_entries " +
+                "BEGIN " + apply(-1, "OLD.$1") + apply(1, "NEW.$1") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS stats_rollup_after_delete AFTER DELETE ON watched_entries " +
+                "BEGIN " + apply(-1, "OLD.$1") + " END");
+    }
+
+    static void dropTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS stats_rollup_after_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS stats_rollup_after_update");
+        db.execSQL("DROP TRIGGER IF EXISTS stats_rollup_after_delete");
+    }
+
+    // Recomputes every counter from watched_entries
+    static void rebuild(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM stats_rollup");
+        for (String[] dimension : DIMENSIONS) {
+            String bucket = expand(dimension[1], "$1");
+            StringBuilder columns = new StringBuilder("dimension, bucket");
+            StringBuilder values = new StringBuilder("'" + dimension[0] + "', " + bucket);
+            for (String[] metric : METRICS) {
+                columns.append(", ").append(metric[0]);
+                values.append(", SUM(").append(expand(metric[1], "$1")).append(")");
+            }
+            db.execSQL("INSERT INTO stats_rollup (" + columns + ") SELECT " + values +
+                    " FROM watched_entries WHERE " + bucket + " IS NOT NULL GROUP BY " + bucket);
+        }
+    }
+
+    private static String apply(int sign, String columnTemplate) {
+        String op = sign > 0 ? " + " : " - ";
+        StringBuilder sql = new StringBuilder();
+        for (String[] dimension : DIMENSIONS) {
+            String name = dimension[0];
+            String bucket = expand(dimension[1], columnTemplate);
+
+            if (sign > 0) {
+                sql.append("INSERT INTO stats_rollup (dimension, bucket) SELECT '")
+                        .append(name).append("', ").append(bucket)
+                        .append(" WHERE ").append(bucket).append(" IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stats_rollup")
+                        .append(" WHERE dimension = '").append(name).append("' AND bucket = ").append(bucket).append("); ");
+            }
+
+            sql.append("UPDATE stats_rollup SET ");
+            for (int i = 0; i < METRICS.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(METRICS[i][0]).append(" = ").append(METRICS[i][0]).append(op)
+                        .append("(").append(expand(METRICS[i][1], columnTemplate)).append(")");
+            }
+            sql.append(" WHERE dimension = '").append(name).append("' AND bucket = ").append(bucket).append("; ");
+
+            if (sign < 0) {
+                sql.append("DELETE FROM stats_rollup WHERE dimension = '").append(name)
+                        .append("' AND bucket = ").append(bucket).append(" AND cnt <= 0; ");
+            }
+        }
+        return sql.toString();
+    }
+
+    // columnTemplate is a replacement pattern where $1 is the column name, e.g. "NEW.$1"
+    private static String expand(String expression, String columnTemplate) {
+        return PLACEHOLDER.matcher(expression).replaceAll(columnTemplate);
+    }
+}
@@ -0,0 +1,29 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Latest change to a watched or watchlist row, written by triggers (see ChangeLogSql) so a delta
+// backup can export only what changed since the last checkpoint. One row per changed row: a new
+// change replaces the older one and takes the next sequence number.
+@Entity(tableName = "change_log", indices = {@Index(value = {"tableName", "rowId"})})
+public class ChangeLogEntry {
+    @PrimaryKey(autoGenerate = true)
+    public long seq; // AUTOINCREMENT, so never reused even after pruning
+    
+    @NonNull
+    public String tableName;
+    
+    public long rowId;
+    
+    @NonNull
+    public String op; // INSERT, UPDATE or DELETE
+    
+    public ChangeLogEntry(@NonNull String tableName, long rowId, @NonNull String op) {
+        this.tableName = tableName;
+        this.rowId = rowId;
+        this.op = op;
+    }
+}
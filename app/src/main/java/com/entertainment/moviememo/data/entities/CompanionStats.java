@@ -0,0 +1,11 @@
+package com.entertainment.moviememo.data.entities;
+
+// Per-person totals for the Stats tab
+public class CompanionStats {
+    public long personId;
+    public String name;
+    public int watchedCount;
+    public int spendCents;
+    public String lastWatchedDate; // ISO yyyy-MM-dd of the latest movie watched together
+    public String lastWatchedTitle;
+}
@@ -0,0 +1,22 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Change-log sequence number a backup chain has been exported up to
+@Entity(tableName = "export_checkpoints")
+public class ExportCheckpoint {
+    public static final String BACKUP = "backup";
+    
+    @PrimaryKey
+    @NonNull
+    public String name;
+    
+    public long seq;
+    
+    public ExportCheckpoint(@NonNull String name, long seq) {
+        this.name = name;
+        this.seq = seq;
+    }
+}
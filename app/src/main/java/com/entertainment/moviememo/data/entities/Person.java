@@ -0,0 +1,45 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Someone a movie was watched with; names are unique ignoring case
+@Entity(tableName = "people",
+        indices = {@Index(value = {"name"}, unique = true)})
+public class Person {
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+    
+    @NonNull
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
+    public String name;
+    
+    public Person(@NonNull String name) {
+        this.name = name;
+    }
+    
+    // Distinct trimmed names from a companions string such as "Alice, Bob"
+    public static List<String> splitNames(String companions) {
+        List<String> names = new ArrayList<>();
+        if (companions == null) {
+            return names;
+        }
+        List<String> seen = new ArrayList<>();
+        for (String part : companions.split(",")) {
+            String name = part.trim();
+            String key = name.toLowerCase(Locale.ROOT);
+            if (!name.isEmpty() && !seen.contains(key)) {
+                seen.add(key);
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}
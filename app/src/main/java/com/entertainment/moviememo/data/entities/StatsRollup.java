@@ -0,0 +1,48 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+// Running totals for the Stats tab, maintained by triggers on watched_entries (see StatsRollupSql).
+// One row per (dimension, bucket): dimension is total, month, genre, location, language or timeOfDay.
+@Entity(tableName = "stats_rollup", primaryKeys = {"dimension", "bucket"})
+public class StatsRollup {
+    @NonNull
+    public String dimension;
+    
+    @NonNull
+    public String bucket; // "" for the total row, yyyy-MM for months, otherwise the column value
+    
+    @ColumnInfo(defaultValue = "0")
+    public long cnt;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long ratingSum;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long ratingCount;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long spendSum;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long durationSum;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long theaterSpendSum;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long theaterSpendCount; // Theater visits with a spend recorded
+    
+    @ColumnInfo(defaultValue = "0")
+    public long weekdayCount;
+    
+    @ColumnInfo(defaultValue = "0")
+    public long weekendCount;
+    
+    public StatsRollup(@NonNull String dimension, @NonNull String bucket) {
+        this.dimension = dimension;
+        this.bucket = bucket;
+    }
+}
@@ -0,0 +1,60 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.room.Ignore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Everything the Stats tab shows, loaded in one transaction so the screen binds once per change.
+// The scalar fields are filled by MovieDao.statsTotals(); the lists are added from stats_rollup buckets.
+public class StatsSnapshot {
+    public int watchedCount;
+    public Double averageRating; // null when nothing is rated
+    public int totalSpendCents;
+    public int totalDurationMinutes;
+    public int thisMonthCount;
+    public int thisMonthSpendCents;
+    public int avgSpendCents; // Theater movies only
+    public int thisMonthAvgSpendCents; // Theater movies only
+    public int weekdayCount;
+    public int weekendCount;
+    
+    @Ignore
+    public List<MonthCount> moviesPerMonth = new ArrayList<>();
+    @Ignore
+    public List<KeyCount> topTimeOfDay = new ArrayList<>();
+    @Ignore
+    public List<KeyCount> topGenres = new ArrayList<>();
+    @Ignore
+    public List<KeySum> spendByLocation = new ArrayList<>();
+    @Ignore
+    public List<KeyCount> moviesByLocation = new ArrayList<>();
+    @Ignore
+    public List<KeyCount> moviesByLanguage = new ArrayList<>();
+    @Ignore
+    public List<KeyCount> moviesByCompanion = new ArrayList<>();
+    @Ignore
+    public List<CompanionStats> companionStats = new ArrayList<>();
+    
+    // Buckets must arrive in display order (months newest first, everything else by count)
+    public void addBucket(StatsRollup bucket) {
+        switch (bucket.dimension) {
+            case "month":
+                moviesPerMonth.add(new MonthCount(bucket.bucket, (int) bucket.cnt));
+                break;
+            case "timeOfDay":
+                topTimeOfDay.add(new KeyCount(bucket.bucket, (int) bucket.cnt));
+                break;
+            case "genre":
+                topGenres.add(new KeyCount(bucket.bucket, (int) bucket.cnt));
+                break;
+            case "location":
+                moviesByLocation.add(new KeyCount(bucket.bucket, (int) bucket.cnt));
+                spendByLocation.add(new KeySum(bucket.bucket, (int) bucket.spendSum));
+                break;
+            case "language":
+                moviesByLanguage.add(new KeyCount(bucket.bucket, (int) bucket.cnt));
+                break;
+        }
+    }
+}
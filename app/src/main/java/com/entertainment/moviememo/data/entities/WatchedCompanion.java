@@ -0,0 +1,25 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+// Junction between watched_entries and people, kept in step with WatchedEntry.companions by MovieDao
+@Entity(tableName = "watched_companions",
+        primaryKeys = {"watchedId", "personId"},
+        foreignKeys = {
+                @ForeignKey(entity = WatchedEntry.class, parentColumns = "id", childColumns = "watchedId",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = Person.class, parentColumns = "id", childColumns = "personId",
+                        onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"personId", "watchedId"})})
+public class WatchedCompanion {
+    public long watchedId;
+    
+    public long personId;
+    
+    public WatchedCompanion(long watchedId, long personId) {
+        this.watchedId = watchedId;
+        this.personId = personId;
+    }
+}
@@ -1,14 +1,38 @@
 package com.entertainment.moviememo.data.entities;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.entertainment.moviememo.utils.ContentKey;
+import com.entertainment.moviememo.utils.DateUtils;
+
 import java.io.Serializable;
 
+// The composite indexes match the WatchedSort keys, with and without the location filter, so the
+// watched list pages straight off an index. SQLite can walk an index backwards, so one index
+// serves a sort and its reverse; the ASC/DESC ones cover the mixed-direction "Lowest" sorts.
 @Entity(tableName = "watched_entries",
-        indices = {@Index(value = {"watchedDate"}), @Index(value = {"title"})})
+        indices = {@Index(value = {"watchedDate", "id"}), @Index(value = {"title"}),
+                @Index(value = {"theaterName"}), @Index(value = {"city"}), @Index(value = {"streamingPlatform"}),
+                @Index(value = {"contentKey"}),
+                @Index(value = {"rating", "watchedDate", "id"}),
+                @Index(value = {"rating", "watchedDate", "id"}, orders = {Index.Order.ASC, Index.Order.DESC, Index.Order.DESC},
+                        name = "index_watched_entries_rating_asc_watchedDate_desc_id_desc"),
+                @Index(value = {"spendCents", "watchedDate", "id"}),
+                @Index(value = {"spendCents", "watchedDate", "id"}, orders = {Index.Order.ASC, Index.Order.DESC, Index.Order.DESC},
+                        name = "index_watched_entries_spendCents_asc_watchedDate_desc_id_desc"),
+                @Index(value = {"locationType", "watchedDate", "id"}),
+                @Index(value = {"locationType", "rating", "watchedDate", "id"}),
+                @Index(value = {"locationType", "rating", "watchedDate", "id"},
+                        orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC, Index.Order.DESC},
+                        name = "index_watched_entries_locationType_rating_asc_watchedDate_desc_id_desc"),
+                @Index(value = {"locationType", "spendCents", "watchedDate", "id"}),
+                @Index(value = {"locationType", "spendCents", "watchedDate", "id"},
+                        orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC, Index.Order.DESC},
+                        name = "index_watched_entries_locationType_spendCents_asc_watchedDate_desc_id_desc")})
 public class WatchedEntry implements Serializable {
     @PrimaryKey(autoGenerate = true)
     public long id;
@@ -49,11 +73,49 @@ public class WatchedEntry implements Serializable {
     
     public String streamingPlatform; // Streaming platform when location is HOME
     
+    // Derived from watchedDate, so the stats rollup triggers can count weekday and weekend
+    // movies without strftime()
+    @ColumnInfo(defaultValue = "-1")
+    public int dayOfWeek; // 0 = Sunday ... 6 = Saturday, -1 if watchedDate is not a valid date
+    
+    // ContentKey of title, watchedDate and locationType, which imports match existing entries on
+    @ColumnInfo(defaultValue = "0")
+    public long contentKey;
+    
     public WatchedEntry(@NonNull String title, @NonNull String watchedDate, 
                        @NonNull String locationType, @NonNull String timeOfDay) {
         this.title = title;
         this.watchedDate = watchedDate;
         this.locationType = locationType;
         this.timeOfDay = timeOfDay;
+        
+        updateDayOfWeek();
+        updateContentKey();
+    }
+    
+    // Call after changing watchedDate
+    public void updateDayOfWeek() {
+        try {
+            dayOfWeek = DateUtils.dayOfWeekFromEpochDay(DateUtils.toEpochDay(watchedDate));
+        } catch (IllegalArgumentException e) {
+            dayOfWeek = -1;
+        }
+    }
+    
+    // Call after changing title, watchedDate or locationType
+    public void updateContentKey() {
+        contentKey = ContentKey.of(title, watchedDate, locationType);
+    }
+    
+    // A watched entry for a watchlist item seen on watchedDate, keeping its notes, language and platform
+    public static WatchedEntry fromWatchlistItem(WatchlistItem item, String watchedDate) {
+        String locationType = "THEATER".equals(item.whereToWatch) ? "THEATER" : "HOME";
+        WatchedEntry entry = new WatchedEntry(item.title, watchedDate, locationType, "EVENING");
+        entry.notes = item.notes;
+        entry.language = item.language;
+        if (!"THEATER".equals(locationType)) {
+            entry.streamingPlatform = item.streamingPlatform;
+        }
+        return entry;
     }
 }
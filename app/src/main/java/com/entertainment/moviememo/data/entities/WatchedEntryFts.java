@@ -0,0 +1,14 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full-text index over watched_entries; Room keeps it in sync with content triggers
+@Fts4(contentEntity = WatchedEntry.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "watched_entries_fts")
+public class WatchedEntryFts {
+    public String title;
+    
+    public String notes;
+}
@@ -0,0 +1,59 @@
+package com.entertainment.moviememo.data.entities;
+
+import java.util.Objects;
+
+// One row of the watched list: only the short fields the list displays. Notes come back as a
+// short preview and locationNotes/posterUri aren't read; the full WatchedEntry is loaded by id
+// when a row is opened for editing.
+public class WatchedListRow {
+    // Enough for the two lines the list shows
+    public static final int NOTES_PREVIEW_LENGTH = 200;
+
+    // Select list over watched_entries matching the fields below
+    public static final String COLUMNS = "id, title, rating, watchedDate, locationType, companions, " +
+            "spendCents, durationMin, timeOfDay, genre, language, theaterName, city, streamingPlatform, " +
+            "substr(notes, 1, " + NOTES_PREVIEW_LENGTH + ") AS notesPreview";
+
+    public long id;
+    public String title;
+    public Integer rating;
+    public String watchedDate;
+    public String locationType;
+    public String companions;
+    public Integer spendCents;
+    public Integer durationMin;
+    public String timeOfDay;
+    public String genre;
+    public String language;
+    public String theaterName;
+    public String city;
+    public String streamingPlatform;
+    public String notesPreview;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WatchedListRow)) return false;
+        WatchedListRow that = (WatchedListRow) o;
+        return id == that.id
+                && Objects.equals(title, that.title)
+                && Objects.equals(rating, that.rating)
+                && Objects.equals(watchedDate, that.watchedDate)
+                && Objects.equals(locationType, that.locationType)
+                && Objects.equals(companions, that.companions)
+                && Objects.equals(spendCents, that.spendCents)
+                && Objects.equals(durationMin, that.durationMin)
+                && Objects.equals(timeOfDay, that.timeOfDay)
+                && Objects.equals(genre, that.genre)
+                && Objects.equals(language, that.language)
+                && Objects.equals(theaterName, that.theaterName)
+                && Objects.equals(city, that.city)
+                && Objects.equals(streamingPlatform, that.streamingPlatform)
+                && Objects.equals(notesPreview, that.notesPreview);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+}
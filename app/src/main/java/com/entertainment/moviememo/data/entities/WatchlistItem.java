@@ -1,14 +1,19 @@
 package com.entertainment.moviememo.data.entities;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.entertainment.moviememo.utils.ContentKey;
+
 import java.io.Serializable;
 
 @Entity(tableName = "watchlist_items",
-        indices = {@Index(value = {"title"}, unique = false)})
+        indices = {@Index(value = {"title"}, unique = false), @Index(value = {"createdAt"}),
+                @Index(value = {"whereToWatch", "createdAt"}), @Index(value = {"streamingPlatform"}),
+                @Index(value = {"contentKey"})})
 public class WatchlistItem implements Serializable {
     @PrimaryKey(autoGenerate = true)
     public long id;
@@ -32,9 +37,19 @@ public class WatchlistItem implements Serializable {
     
     public String streamingPlatform; // Streaming platform when whereToWatch is OTT_STREAMING
     
+    // ContentKey of the title, which imports match existing items on
+    @ColumnInfo(defaultValue = "0")
+    public long contentKey;
+    
     public WatchlistItem(@NonNull String title) {
         this.title = title;
         this.createdAt = System.currentTimeMillis();
         this.priority = 2; // Default to medium priority
+        updateContentKey();
+    }
+    
+    // Call after changing the title
+    public void updateContentKey() {
+        contentKey = ContentKey.of(title);
     }
 }
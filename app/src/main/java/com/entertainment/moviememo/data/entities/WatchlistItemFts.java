@@ -0,0 +1,14 @@
+package com.entertainment.moviememo.data.entities;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full-text index over watchlist_items; Room keeps it in sync with content triggers
+@Fts4(contentEntity = WatchlistItem.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "watchlist_items_fts")
+public class WatchlistItemFts {
+    public String title;
+    
+    public String notes;
+}
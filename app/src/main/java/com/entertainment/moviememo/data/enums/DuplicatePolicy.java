@@ -0,0 +1,18 @@
+package com.entertainment.moviememo.data.enums;
+
+// What a JSON or CSV import does with a row whose content key matches one already in the library
+public enum DuplicatePolicy {
+    SKIP("Skip duplicates"),           // Keep the existing row as it is
+    MERGE("Fill in missing details"),  // Fill the existing row's empty fields from the imported one
+    OVERWRITE("Overwrite existing");   // Replace the existing row's fields, keeping its id
+
+    private final String displayName;
+
+    DuplicatePolicy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
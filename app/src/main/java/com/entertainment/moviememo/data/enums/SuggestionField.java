@@ -0,0 +1,20 @@
+package com.entertainment.moviememo.data.enums;
+
+// Form fields that offer autocomplete from previously entered values
+public enum SuggestionField {
+    STREAMING_PLATFORM("Netflix", "Prime Video", "Disney+", "Hulu", "HBO Max",
+            "Paramount+", "Apple TV+", "Peacock", "YouTube", "Crunchyroll"),
+    THEATER_NAME,
+    CITY,
+    COMPANION;
+    
+    private final String[] defaults; // Always offered first, ahead of stored values
+    
+    SuggestionField(String... defaults) {
+        this.defaults = defaults;
+    }
+    
+    public String[] getDefaults() {
+        return defaults;
+    }
+}
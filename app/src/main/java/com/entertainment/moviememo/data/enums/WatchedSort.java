@@ -0,0 +1,45 @@
+package com.entertainment.moviememo.data.enums;
+
+public enum WatchedSort {
+    DATE_DESC("Date (Newest)", new String[]{"watchedDate", "id"}, new boolean[]{true, true}),
+    DATE_ASC("Date (Oldest)", new String[]{"watchedDate", "id"}, new boolean[]{false, false}),
+    RATING_DESC("Rating (Highest)", new String[]{"rating", "watchedDate", "id"}, new boolean[]{true, true, true}),
+    RATING_ASC("Rating (Lowest)", new String[]{"rating", "watchedDate", "id"}, new boolean[]{false, true, true}),
+    SPEND_DESC("Amount (Highest)", new String[]{"spendCents", "watchedDate", "id"}, new boolean[]{true, true, true}),
+    SPEND_ASC("Amount (Lowest)", new String[]{"spendCents", "watchedDate", "id"}, new boolean[]{false, true, true});
+
+    private final String displayName;
+    // Sort key, always ending with id so every row has a unique position. Only the leading column
+    // may be NULL, and each key has a matching index on watched_entries (see WatchedEntry).
+    private final String[] columns;
+    private final boolean[] descending;
+
+    WatchedSort(String displayName, String[] columns, boolean[] descending) {
+        this.displayName = displayName;
+        this.columns = columns;
+        this.descending = descending;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public boolean isDescending(int index) {
+        return descending[index];
+    }
+
+    public String orderByClause(boolean reversed) {
+        StringBuilder orderBy = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                orderBy.append(", ");
+            }
+            orderBy.append(columns[i]).append(descending[i] != reversed ? " DESC" : " ASC");
+        }
+        return orderBy.toString();
+    }
+}
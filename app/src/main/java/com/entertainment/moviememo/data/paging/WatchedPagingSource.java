@@ -0,0 +1,208 @@
+package com.entertainment.moviememo.data.paging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.entertainment.moviememo.data.database.AppDatabase;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
+import com.entertainment.moviememo.data.enums.WatchedSort;
+import com.entertainment.moviememo.data.query.WatchedQuery;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * Keyset (seek) paging over watched_entries. Each page continues from the sort key of the
+ * boundary row instead of an OFFSET, so loading page N costs the same as loading page 1.
+ * The key of a page is the row at its edge.
+ */
+public class WatchedPagingSource extends ListenableFuturePagingSource<WatchedListRow, WatchedListRow> {
+
+    private final AppDatabase database;
+    private final ListeningExecutorService executor;
+    private final WatchedQuery query;
+    private final WatchedSort sort;
+
+    private final AtomicBoolean observerRegistered = new AtomicBoolean(false);
+    private volatile boolean resetPosition = false;
+
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("watched_entries") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidate();
+        }
+    };
+
+    public WatchedPagingSource(AppDatabase database, ListeningExecutorService executor, WatchedQuery query) {
+        this.database = database;
+        this.executor = executor;
+        this.query = query;
+        this.sort = query.getSort();
+
+        registerInvalidatedCallback(() -> {
+            if (observerRegistered.get()) {
+                executor.execute(() -> database.getInvalidationTracker().removeObserver(observer));
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    // Invalidate because the sort/filter changed, so the next generation starts from the top
+    public void invalidateForNewQuery() {
+        resetPosition = true;
+        invalidate();
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<WatchedListRow, WatchedListRow>> loadFuture(@NonNull LoadParams<WatchedListRow> params) {
+        return executor.submit(() -> load(params));
+    }
+
+    private LoadResult<WatchedListRow, WatchedListRow> load(LoadParams<WatchedListRow> params) {
+        try {
+            // Registering touches the database, so it is done here rather than on the main thread
+            if (observerRegistered.compareAndSet(false, true)) {
+                database.getInvalidationTracker().addObserver(observer);
+            }
+
+            WatchedListRow key = params.getKey();
+            int loadSize = params.getLoadSize();
+
+            if (params instanceof LoadParams.Append) {
+                List<WatchedListRow> page = loadRows(key, false, false, loadSize);
+                return new LoadResult.Page<>(page, null, page.size() < loadSize ? null : last(page));
+            }
+
+            if (params instanceof LoadParams.Prepend) {
+                List<WatchedListRow> page = loadRows(key, true, false, loadSize);
+                Collections.reverse(page);
+                return new LoadResult.Page<>(page, page.size() < loadSize ? null : first(page), null);
+            }
+
+            // Refresh: resume at the anchor row if we have one, otherwise start at the top
+            List<WatchedListRow> page = key != null ? loadRows(key, false, true, loadSize) : new ArrayList<>();
+            if (page.isEmpty()) {
+                key = null;
+                page = loadRows(null, false, false, loadSize);
+            }
+            return new LoadResult.Page<>(page,
+                    key == null || page.isEmpty() ? null : first(page),
+                    page.size() < loadSize ? null : last(page));
+        } catch (Exception e) {
+            return new LoadResult.Error<>(e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public WatchedListRow getRefreshKey(@NonNull PagingState<WatchedListRow, WatchedListRow> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (resetPosition || anchorPosition == null) {
+            return null;
+        }
+        // Start a little above the anchor so the visible rows survive the reload
+        return state.closestItemToPosition(Math.max(0, anchorPosition - state.getConfig().pageSize / 2));
+    }
+
+    private List<WatchedListRow> loadRows(@Nullable WatchedListRow key, boolean before, boolean inclusive, int limit) {
+        // Read one NULL segment of the leading column at a time so each query is a plain range
+        // over one of the sort indexes on watched_entries; an OR across NULL/non-NULL can't seek
+        Boolean[] segments = segments(before);
+        int start = 0;
+        if (key != null && segments[0] != null) {
+            boolean keyIsNull = keyValue(key, sort.getColumns()[0]) == null;
+            start = segments[0] == keyIsNull ? 0 : 1;
+        }
+
+        List<WatchedListRow> rows = new ArrayList<>();
+        for (int i = start; i < segments.length && rows.size() < limit; i++) {
+            rows.addAll(querySegment(segments[i], i == start ? key : null, before, inclusive, limit - rows.size()));
+        }
+        return rows;
+    }
+
+    // NULL segments of the leading column in read order: null when the column is NOT NULL,
+    // otherwise TRUE for the NULL rows and FALSE for the rest. SQLite sorts NULL below every value.
+    private Boolean[] segments(boolean before) {
+        if (!isNullable(sort.getColumns()[0])) {
+            return new Boolean[]{null};
+        }
+        boolean descending = sort.isDescending(0) != before;
+        return descending ? new Boolean[]{false, true} : new Boolean[]{true, false};
+    }
+
+    private List<WatchedListRow> querySegment(@Nullable Boolean nulls, @Nullable WatchedListRow key, boolean before,
+                                            boolean inclusive, int limit) {
+        List<String> window = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
+        if (nulls != null) {
+            window.add(sort.getColumns()[0] + (nulls ? " IS NULL" : " IS NOT NULL"));
+        }
+        if (key != null) {
+            // Within the NULL segment the leading column is fixed, so seek on the rest of the key
+            window.add(seekCondition(key, Boolean.TRUE.equals(nulls) ? 1 : 0, before, inclusive, args));
+        }
+
+        return database.movieDao().listWatchedRows(query.compile(window, args, before, limit));
+    }
+
+    // Rows strictly after the key in sort order (or at/after it when inclusive), from column
+    // `from` on. Expanded by hand rather than with row values, which need SQLite 3.15 (API 26+);
+    // the leading "col <= ?" bound is redundant but is what lets SQLite seek the index.
+    private String seekCondition(WatchedListRow key, int from, boolean before, boolean inclusive, List<Object> args) {
+        String[] columns = sort.getColumns();
+        String column = columns[from];
+        Object value = keyValue(key, column);
+        String op = sort.isDescending(from) != before ? "<" : ">";
+
+        if (from == columns.length - 1) {
+            args.add(value);
+            return column + " " + op + (inclusive ? "= ?" : " ?");
+        }
+
+        args.add(value);
+        args.add(value);
+        args.add(value);
+        return column + " " + op + "= ? AND (" + column + " " + op + " ? OR (" + column + " = ? AND " +
+                seekCondition(key, from + 1, before, inclusive, args) + "))";
+    }
+
+    private static Object keyValue(WatchedListRow row, String column) {
+        switch (column) {
+            case "watchedDate":
+                return row.watchedDate;
+            case "rating":
+                return row.rating;
+            case "spendCents":
+                return row.spendCents;
+            case "id":
+                return row.id;
+            default:
+                throw new IllegalArgumentException("Unsupported sort column: " + column);
+        }
+    }
+
+    private static boolean isNullable(String column) {
+        return column.equals("rating") || column.equals("spendCents");
+    }
+
+    private static WatchedListRow first(List<WatchedListRow> page) {
+        return page.get(0);
+    }
+
+    private static WatchedListRow last(List<WatchedListRow> page) {
+        return page.get(page.size() - 1);
+    }
+}
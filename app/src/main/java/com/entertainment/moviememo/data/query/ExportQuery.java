@@ -0,0 +1,51 @@
+package com.entertainment.moviememo.data.query;
+
+import android.text.TextUtils;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.List;
+
+/**
+ * Statements that stream a table out for MovieDao.exportCursor. The caller names the columns, so
+ * a column added to the backup schema is exported without touching the DAO. Delta exports read
+ * the rows changed in a change-log range that still exist, or the ids deleted in that range.
+ * Imports that match rows by content read every content key, then the rows with given keys.
+ */
+public final class ExportQuery {
+
+    private ExportQuery() {}
+
+    public static SimpleSQLiteQuery all(String table, String[] columns, String orderBy) {
+        return new SimpleSQLiteQuery("SELECT " + TextUtils.join(", ", columns) + " FROM " + table +
+                " ORDER BY " + orderBy);
+    }
+
+    public static SimpleSQLiteQuery changed(String table, String[] columns, long fromSeq, long toSeq) {
+        return new SimpleSQLiteQuery("SELECT " + TextUtils.join(", ", columns) + " FROM " + table +
+                " WHERE id IN (SELECT rowId FROM change_log WHERE tableName = ? AND seq > ? AND seq <= ?)",
+                new Object[]{table, fromSeq, toSeq});
+    }
+
+    // One column, the content key of every row, read off its index
+    public static SimpleSQLiteQuery contentKeys(String table) {
+        return new SimpleSQLiteQuery("SELECT contentKey FROM " + table);
+    }
+
+    // The columns followed by contentKey, for the rows with any of the keys
+    public static SimpleSQLiteQuery withContentKeys(String table, String[] columns, List<Long> keys) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(TextUtils.join(", ", columns))
+                .append(", contentKey FROM ").append(table).append(" WHERE contentKey IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        return new SimpleSQLiteQuery(sql.append(")").toString(), keys.toArray());
+    }
+
+    // One column, the id of each row deleted in the range
+    public static SimpleSQLiteQuery deleted(String table, long fromSeq, long toSeq) {
+        return new SimpleSQLiteQuery("SELECT rowId FROM change_log WHERE tableName = ? AND seq > ? AND seq <= ? " +
+                "AND rowId NOT IN (SELECT id FROM " + table + ")",
+                new Object[]{table, fromSeq, toSeq});
+    }
+}
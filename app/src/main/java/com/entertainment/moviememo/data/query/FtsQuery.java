@@ -0,0 +1,25 @@
+package com.entertainment.moviememo.data.query;
+
+import java.util.Locale;
+
+// Builds FTS4 MATCH expressions for WatchedQuery and WatchlistQuery
+final class FtsQuery {
+
+    private FtsQuery() {}
+
+    // Turns free text into an FTS MATCH expression: every word becomes a prefix term, so
+    // "star wa" matches "Star Wars". Operators and quotes are stripped rather than interpreted.
+    static String fromUserText(String text) {
+        StringBuilder ftsQuery = new StringBuilder();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}\\p{M}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (ftsQuery.length() > 0) {
+                ftsQuery.append(' ');
+            }
+            ftsQuery.append(token).append('*');
+        }
+        return ftsQuery.toString();
+    }
+}
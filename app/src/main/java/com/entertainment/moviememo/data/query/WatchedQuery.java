@@ -0,0 +1,93 @@
+package com.entertainment.moviememo.data.query;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import com.entertainment.moviememo.data.entities.WatchedListRow;
+import com.entertainment.moviememo.data.enums.WatchedSort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What the watched list shows: sort key and direction, location filter and search text.
+ * Compiles to one parameterized statement over watched_entries, so every combination runs
+ * in SQLite on the sort indexes. WatchedPagingSource adds the keyset window and page size.
+ * Search only filters: results keep the chosen sort rather than a relevance order, since the
+ * keyset pages seek on the sort key.
+ */
+public final class WatchedQuery {
+
+    private final WatchedSort sort;
+    private final String locationType; // null for all locations
+    private final String searchText; // as typed, null when not searching
+
+    public WatchedQuery(@NonNull WatchedSort sort, @Nullable String locationType, @Nullable String searchText) {
+        this.sort = sort;
+        this.locationType = locationType;
+        this.searchText = searchText == null || searchText.trim().isEmpty() ? null : searchText.trim();
+    }
+
+    public WatchedSort getSort() {
+        return sort;
+    }
+
+    @Nullable
+    public String getLocationType() {
+        return locationType;
+    }
+
+    @Nullable
+    public String getSearchText() {
+        return searchText;
+    }
+
+    // windowConditions (with windowArgs bound in order) are ANDed after the query's own filters
+    public SimpleSQLiteQuery compile(List<String> windowConditions, List<Object> windowArgs, boolean reversed, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
+        if (locationType != null) {
+            conditions.add("locationType = ?");
+            args.add(locationType);
+        }
+        if (searchText != null) {
+            String ftsQuery = FtsQuery.fromUserText(searchText);
+            if (ftsQuery.isEmpty()) {
+                conditions.add("0"); // Nothing searchable was typed
+            } else {
+                conditions.add("id IN (SELECT docid FROM watched_entries_fts WHERE watched_entries_fts MATCH ?)");
+                args.add(ftsQuery);
+            }
+        }
+        conditions.addAll(windowConditions);
+        args.addAll(windowArgs);
+
+        StringBuilder sql = new StringBuilder("SELECT " + WatchedListRow.COLUMNS + " FROM watched_entries");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(TextUtils.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(sort.orderByClause(reversed));
+        sql.append(" LIMIT ").append(limit);
+
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WatchedQuery)) return false;
+        WatchedQuery that = (WatchedQuery) o;
+        return sort == that.sort && Objects.equals(locationType, that.locationType)
+                && Objects.equals(searchText, that.searchText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sort, locationType, searchText);
+    }
+}
@@ -0,0 +1,105 @@
+package com.entertainment.moviememo.data.query;
+
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * What the watchlist shows: where-to-watch filter, search text and an optional row limit.
+ * Compiles to one parameterized statement for MovieDao.observeWatchlist. Search results are
+ * ranked title-prefix hits first, then other title hits, then notes-only hits; otherwise
+ * newest first.
+ */
+public final class WatchlistQuery {
+
+    private final String whereToWatch; // null for all
+    private final String searchText; // as typed, null when not searching
+    private final int limit; // 0 for no limit
+
+    public WatchlistQuery(@Nullable String whereToWatch, @Nullable String searchText) {
+        this(whereToWatch, searchText, 0);
+    }
+
+    public WatchlistQuery(@Nullable String whereToWatch, @Nullable String searchText, int limit) {
+        this.whereToWatch = whereToWatch;
+        this.searchText = searchText == null || searchText.trim().isEmpty() ? null : searchText.trim();
+        this.limit = limit;
+    }
+
+    @Nullable
+    public String getWhereToWatch() {
+        return whereToWatch;
+    }
+
+    @Nullable
+    public String getSearchText() {
+        return searchText;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public SimpleSQLiteQuery compile() {
+        StringBuilder sql = new StringBuilder("SELECT watchlist_items.* FROM watchlist_items");
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        boolean ranked = false;
+
+        if (searchText != null) {
+            String ftsQuery = FtsQuery.fromUserText(searchText);
+            if (ftsQuery.isEmpty()) {
+                conditions.add("0"); // Nothing searchable was typed
+            } else {
+                sql.append(" JOIN watchlist_items_fts ON watchlist_items.id = watchlist_items_fts.rowid");
+                conditions.add("watchlist_items_fts MATCH ?");
+                args.add(ftsQuery);
+                ranked = true;
+            }
+        }
+        if (whereToWatch != null) {
+            conditions.add("watchlist_items.whereToWatch = ?");
+            args.add(whereToWatch);
+        }
+
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(TextUtils.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        if (ranked) {
+            sql.append("CASE WHEN watchlist_items.title LIKE ? ESCAPE '\\' THEN 0 " +
+                    "WHEN offsets(watchlist_items_fts) LIKE '0 %' THEN 1 ELSE 2 END, ");
+            args.add(escapeLike(searchText) + "%");
+        }
+        sql.append("watchlist_items.createdAt DESC");
+        if (limit > 0) {
+            sql.append(" LIMIT ").append(limit);
+        }
+
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    // So % and _ in the search text match themselves in a LIKE pattern
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WatchlistQuery)) return false;
+        WatchlistQuery that = (WatchlistQuery) o;
+        return limit == that.limit && Objects.equals(whereToWatch, that.whereToWatch)
+                && Objects.equals(searchText, that.searchText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(whereToWatch, searchText, limit);
+    }
+}
@@ -0,0 +1,61 @@
+package com.entertainment.moviememo.data.repository;
+
+import android.os.Process;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The process-wide threads that touch the database: one lane for writes, which run one at a
+// time in submission order, and a small pool for background reads such as paging. Shared by
+// every MovieRepository caller so the thread count doesn't grow with the screens opened.
+public class DatabaseExecutors {
+
+    private static final int READ_THREADS = 2;
+
+    private final ExecutorService writes;
+    private final ListeningExecutorService reads;
+
+    DatabaseExecutors() {
+        this.writes = Executors.newSingleThreadExecutor(threadFactory("moviememo-db-write"));
+        this.reads = MoreExecutors.listeningDecorator(
+                Executors.newFixedThreadPool(READ_THREADS, threadFactory("moviememo-db-read")));
+    }
+
+    public ExecutorService writes() {
+        return writes;
+    }
+
+    public ListeningExecutorService reads() {
+        return reads;
+    }
+
+    // Stops taking work and lets what's queued finish; pending writes get up to timeoutMs
+    boolean shutdown(long timeoutMs) throws InterruptedException {
+        writes.shutdown();
+        reads.shutdown();
+        boolean drained = writes.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        if (!reads.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+            reads.shutdownNow();
+            drained = false;
+        }
+        return drained;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -3,175 +3,184 @@ package com.entertainment.moviememo.data.repository;
 import android.content.Context;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import com.entertainment.moviememo.data.database.AppDatabase;
 import com.entertainment.moviememo.data.dao.MovieDao;
 import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
 import com.entertainment.moviememo.data.entities.Genre;
-import com.entertainment.moviememo.data.entities.MonthCount;
-import com.entertainment.moviememo.data.entities.KeyCount;
-import com.entertainment.moviememo.data.entities.KeySum;
 import com.entertainment.moviememo.data.entities.NotificationSettings;
+import com.entertainment.moviememo.data.entities.StatsSnapshot;
+import com.entertainment.moviememo.data.enums.SuggestionField;
+import com.entertainment.moviememo.data.paging.WatchedPagingSource;
+import com.entertainment.moviememo.data.query.WatchedQuery;
+import com.entertainment.moviememo.data.query.WatchlistQuery;
+import com.entertainment.moviememo.utils.DateUtils;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
 
 public class MovieRepository {
     
-    private MovieDao movieDao;
-    private ExecutorService executor;
+    private final AppDatabase database;
+    private final MovieDao movieDao;
+    private final DatabaseExecutors executors;
+    private final WriteQueue writes;
+    private final ListeningExecutorService readExecutor;
     
-    public MovieRepository(Context context) {
-        AppDatabase database = AppDatabase.getDatabase(context);
-        this.movieDao = database.movieDao();
-        this.executor = Executors.newFixedThreadPool(4);
-    }
-    
-    // Watched Entries
-    public void insertWatched(WatchedEntry entry) {
-        executor.execute(() -> movieDao.insertWatched(entry));
-    }
+    private static final int SUGGESTION_LIMIT = 50;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
     
-    public void updateWatched(WatchedEntry entry) {
-        executor.execute(() -> movieDao.updateWatched(entry));
-    }
-    
-    public void deleteWatched(WatchedEntry entry) {
-        executor.execute(() -> movieDao.deleteWatched(entry));
-    }
-    
-    public LiveData<List<WatchedEntry>> getAllWatched() {
-        return movieDao.listWatched();
-    }
-    
-    public LiveData<List<WatchedEntry>> searchWatched(String query) {
-        return movieDao.searchWatched("%" + query + "%");
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedByLocation(String locationType) {
-        return movieDao.getWatchedByLocation(locationType);
-    }
-    
-    // Sorting methods
-    public LiveData<List<WatchedEntry>> getWatchedByDateDesc() {
-        return movieDao.listWatchedByDateDesc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedByDateAsc() {
-        return movieDao.listWatchedByDateAsc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedByRatingDesc() {
-        return movieDao.listWatchedByRatingDesc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedByRatingAsc() {
-        return movieDao.listWatchedByRatingAsc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedBySpendDesc() {
-        return movieDao.listWatchedBySpendDesc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedBySpendAsc() {
-        return movieDao.listWatchedBySpendAsc();
-    }
+    private static volatile MovieRepository INSTANCE;
     
-    public LiveData<Integer> getWatchedCount() {
-        return movieDao.countWatched();
+    public static MovieRepository getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (MovieRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new MovieRepository(context);
+                }
+            }
+        }
+        return INSTANCE;
     }
     
-    public LiveData<Double> getAverageRating() {
-        return movieDao.avgRating();
+    // Finishes queued writes and stops the database threads; the next getInstance starts fresh
+    public static boolean shutdown() throws InterruptedException {
+        MovieRepository repository;
+        synchronized (MovieRepository.class) {
+            repository = INSTANCE;
+            INSTANCE = null;
+        }
+        return repository == null || repository.executors.shutdown(SHUTDOWN_TIMEOUT_MS);
     }
     
-    public LiveData<Integer> getTotalSpendCents() {
-        return movieDao.totalSpendCents();
-    }
-    
-    public LiveData<Integer> getTotalDurationMinutes() {
-        return movieDao.totalDurationMinutes();
-    }
-    
-    public LiveData<List<MonthCount>> getMoviesPerMonth() {
-        return movieDao.moviesPerMonth();
-    }
-    
-    public LiveData<List<KeyCount>> getTopTimeOfDay() {
-        return movieDao.topTimeOfDay();
-    }
-    
-    public LiveData<List<KeyCount>> getTopGenres() {
-        return movieDao.topGenres();
-    }
-    
-    public LiveData<List<KeySum>> getSpendByLocation() {
-        return movieDao.spendByLocation();
-    }
-    
-    // New statistics methods
-    public LiveData<List<KeyCount>> getMoviesByLocation() {
-        return movieDao.moviesByLocation();
+    private MovieRepository(Context context) {
+        this.database = AppDatabase.getDatabase(context);
+        this.movieDao = database.movieDao();
+        this.executors = new DatabaseExecutors();
+        this.writes = new WriteQueue(database, executors.writes());
+        this.readExecutor = executors.reads();
     }
     
-    public LiveData<List<KeyCount>> getMoviesByLanguage() {
-        return movieDao.moviesByLanguage();
+    // Watched Entries. Writes return a future that completes with the new row id, or the number
+    // of rows changed, once the write has committed.
+    public ListenableFuture<Long> insertWatched(WatchedEntry entry) {
+        return writes.submit(() -> movieDao.insertWatched(entry));
     }
     
-    public LiveData<List<KeyCount>> getMoviesByCompanion() {
-        return movieDao.moviesByCompanion();
+    // All entries in order, in one write; completes with their ids
+    public ListenableFuture<List<Long>> insertWatchedAll(List<WatchedEntry> entries) {
+        return writes.submit(() -> {
+            List<Long> ids = new ArrayList<>(entries.size());
+            for (WatchedEntry entry : entries) {
+                ids.add(movieDao.insertWatched(entry));
+            }
+            return ids;
+        });
     }
     
-    public LiveData<Integer> getThisMonthCount() {
-        return movieDao.thisMonthCount();
+    public ListenableFuture<Integer> updateWatched(WatchedEntry entry) {
+        return writes.submit(() -> movieDao.updateWatched(entry));
     }
     
-    public LiveData<Integer> getThisMonthSpendCents() {
-        return movieDao.thisMonthSpendCents();
+    public ListenableFuture<Integer> deleteWatched(WatchedEntry entry) {
+        return writes.submit(() -> movieDao.deleteWatched(entry));
     }
     
-    public LiveData<Integer> getAvgSpendCents() {
-        return movieDao.avgSpendCents();
+    public ListenableFuture<Integer> deleteWatched(long id) {
+        return writes.submit(() -> movieDao.deleteWatchedById(id));
     }
     
-    public LiveData<Integer> getThisMonthAvgSpendCents() {
-        return movieDao.thisMonthAvgSpendCents();
+    // Loads the full entry once, e.g. for the edit screen; the list only holds WatchedListRow
+    public LiveData<WatchedEntry> getWatchedById(long id) {
+        MutableLiveData<WatchedEntry> entry = new MutableLiveData<>();
+        readExecutor.execute(() -> entry.postValue(movieDao.getWatchedById(id)));
+        return entry;
     }
     
-    public LiveData<Integer> getWeekdayCount() {
-        return movieDao.weekdayCount();
+    public WatchedPagingSource createWatchedPagingSource(WatchedQuery query) {
+        return new WatchedPagingSource(database, readExecutor, query);
     }
     
-    public LiveData<Integer> getWeekendCount() {
-        return movieDao.weekendCount();
+    // Single observable for the Stats tab; recomputed once per write to watched_entries
+    public LiveData<StatsSnapshot> getStatsSnapshot() {
+        return database.getInvalidationTracker().createLiveData(
+                new String[]{"stats_rollup", "watched_entries", "watched_companions", "people"}, true, movieDao::getStatsSnapshot);
     }
     
     // Watchlist Items
-    public void insertWatchlist(WatchlistItem item) {
-        executor.execute(() -> movieDao.insertWatchlist(item));
-    }
-    
-    public void updateWatchlist(WatchlistItem item) {
-        executor.execute(() -> movieDao.updateWatchlist(item));
-    }
-    
-    public void deleteWatchlist(WatchlistItem item) {
-        executor.execute(() -> movieDao.deleteWatchlist(item));
-    }
-    
-    public LiveData<List<WatchlistItem>> getAllWatchlist() {
-        return movieDao.listWatchlist();
-    }
-    
-    public LiveData<List<WatchlistItem>> searchWatchlist(String query) {
-        return movieDao.searchWatchlist("%" + query + "%");
+    public ListenableFuture<Long> insertWatchlist(WatchlistItem item) {
+        return writes.submit(() -> movieDao.insertWatchlist(item));
+    }
+    
+    public ListenableFuture<List<Long>> insertWatchlistAll(List<WatchlistItem> items) {
+        return writes.submit(() -> {
+            List<Long> ids = new ArrayList<>(items.size());
+            for (WatchlistItem item : items) {
+                ids.add(movieDao.insertWatchlist(item));
+            }
+            return ids;
+        });
+    }
+    
+    public ListenableFuture<Integer> updateWatchlist(WatchlistItem item) {
+        return writes.submit(() -> movieDao.updateWatchlist(item));
+    }
+    
+    public ListenableFuture<Integer> deleteWatchlist(WatchlistItem item) {
+        return writes.submit(() -> movieDao.deleteWatchlist(item));
+    }
+    
+    // Marks a watchlist item as watched today; completes with the new watched entry's id
+    public ListenableFuture<Long> moveToWatched(WatchlistItem item) {
+        WatchedEntry entry = WatchedEntry.fromWatchlistItem(item, DateUtils.getCurrentIsoDate());
+        return writes.submit(() -> movieDao.moveToWatched(item, entry));
+    }
+    
+    // Filter, search and ordering compiled into one statement; re-runs when the watchlist changes
+    public LiveData<List<WatchlistItem>> getWatchlist(WatchlistQuery query) {
+        return movieDao.observeWatchlist(query.compile());
+    }
+    
+    // Autocomplete values for a form field: its defaults, then stored values by how often they're used
+    public LiveData<List<String>> getSuggestions(SuggestionField field) {
+        LiveData<List<String>> stored;
+        switch (field) {
+            case STREAMING_PLATFORM:
+                stored = movieDao.suggestStreamingPlatforms(SUGGESTION_LIMIT);
+                break;
+            case THEATER_NAME:
+                stored = movieDao.suggestTheaterNames(SUGGESTION_LIMIT);
+                break;
+            case CITY:
+                stored = movieDao.suggestCities(SUGGESTION_LIMIT);
+                break;
+            default:
+                stored = movieDao.suggestCompanions(SUGGESTION_LIMIT);
+                break;
+        }
+        
+        String[] defaults = field.getDefaults();
+        if (defaults.length == 0) {
+            return stored;
+        }
+        return Transformations.map(stored, values -> {
+            Set<String> merged = new LinkedHashSet<>(Arrays.asList(defaults));
+            merged.addAll(values);
+            return new ArrayList<>(merged);
+        });
     }
     
     // Genres
-    public void addGenre(Genre genre) {
-        executor.execute(() -> movieDao.addGenre(genre));
+    public ListenableFuture<Long> addGenre(Genre genre) {
+        return writes.submit(() -> movieDao.addGenre(genre));
     }
     
     public LiveData<List<Genre>> getAllGenres() {
@@ -182,21 +191,31 @@ public class MovieRepository {
         return movieDao.countGenres();
     }
 
-    public void clearAllWatched() {
-        executor.execute(() -> movieDao.clearAllWatched());
+    public ListenableFuture<Integer> clearAllWatched() {
+        return writes.submit(() -> movieDao.clearAllWatched());
     }
 
-    public void clearAllWatchlist() {
-        executor.execute(() -> movieDao.clearAllWatchlist());
+    public ListenableFuture<Integer> clearAllWatchlist() {
+        return writes.submit(() -> movieDao.clearAllWatchlist());
+    }
+    
+    // Multi-row writes such as import chunks, queued with everything else on the one writer. The
+    // write can run again if the batch it joined is replayed, so it mustn't rely on state it
+    // changed in an earlier attempt.
+    public ListenableFuture<Void> submitWrite(Runnable write) {
+        return writes.submit(() -> {
+            write.run();
+            return null;
+        });
     }
     
     // Notification Settings
-    public void insertNotificationSettings(NotificationSettings settings) {
-        executor.execute(() -> movieDao.insertNotificationSettings(settings));
+    public ListenableFuture<Long> insertNotificationSettings(NotificationSettings settings) {
+        return writes.submit(() -> movieDao.insertNotificationSettings(settings));
     }
     
-    public void updateNotificationSettings(NotificationSettings settings) {
-        executor.execute(() -> movieDao.updateNotificationSettings(settings));
+    public ListenableFuture<Integer> updateNotificationSettings(NotificationSettings settings) {
+        return writes.submit(() -> movieDao.updateNotificationSettings(settings));
     }
     
     public NotificationSettings getNotificationSettings() {
@@ -206,4 +225,5 @@ public class MovieRepository {
     public LiveData<NotificationSettings> getNotificationSettingsLive() {
         return movieDao.getNotificationSettingsLive();
     }
+    
 }
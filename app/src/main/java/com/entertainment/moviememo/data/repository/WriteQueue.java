@@ -0,0 +1,161 @@
+package com.entertainment.moviememo.data.repository;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Single-writer group commit: mutations queue up in submission order and the write lane drains
+// them in batches, each batch in one transaction. That means one fsync and one Room
+// invalidation per batch rather than per row, and no two writers contending for the lock.
+// Each write's future completes once the batch holding it has committed.
+class WriteQueue {
+    private static final String TAG = "WriteQueue";
+
+    // How long a batch stays open for more writes after the last one arrived
+    private static final long BATCH_WINDOW_MS = 10;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private final RoomDatabase database;
+    private final ExecutorService writer;
+    private final LinkedBlockingQueue<PendingWrite<?>> pending = new LinkedBlockingQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    WriteQueue(RoomDatabase database, ExecutorService writer) {
+        this.database = database;
+        this.writer = writer;
+    }
+
+    // After the writer has shut down the returned future fails with RejectedExecutionException
+    <T> ListenableFuture<T> submit(Callable<T> write) {
+        PendingWrite<T> pendingWrite = new PendingWrite<>(write);
+        pending.add(pendingWrite);
+        try {
+            scheduleDrain();
+        } catch (RejectedExecutionException e) {
+            failPending(e);
+        }
+        return pendingWrite.future;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            // Keep going while writes keep arriving, so a queue that is shutting down still empties
+            while (!pending.isEmpty()) {
+                List<PendingWrite<?>> batch = new ArrayList<>();
+                pending.drainTo(batch, MAX_BATCH_SIZE);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    PendingWrite<?> next = pending.poll(BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    pending.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                }
+                commit(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            draining.set(false);
+            // A write enqueued after the last check but before the flag cleared still needs a drain
+            if (!pending.isEmpty()) {
+                try {
+                    scheduleDrain();
+                } catch (RejectedExecutionException e) {
+                    Log.e(TAG, "Writer shut down with " + pending.size() + " writes pending", e);
+                    failPending(e);
+                }
+            }
+        }
+    }
+
+    // Nothing will drain the queue once the writer rejects work, so fail what is left in it
+    private void failPending(RejectedExecutionException cause) {
+        List<PendingWrite<?>> orphaned = new ArrayList<>();
+        pending.drainTo(orphaned);
+        for (PendingWrite<?> write : orphaned) {
+            write.future.setException(cause);
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            database.runInTransaction(() -> {
+                for (PendingWrite<?> write : batch) {
+                    write.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            // A failing write rolls back the whole batch (a nested DAO transaction that fails marks
+            // the outer one failed), so replay the batch one write per transaction, in the same order
+            Log.w(TAG, "Batch of " + batch.size() + " writes failed, retrying individually", e);
+            for (PendingWrite<?> write : batch) {
+                try {
+                    database.runInTransaction(write::run);
+                    write.complete();
+                } catch (RuntimeException writeFailure) {
+                    Log.e(TAG, "Write failed", writeFailure);
+                    write.future.setException(writeFailure);
+                }
+            }
+            return;
+        }
+        for (PendingWrite<?> write : batch) {
+            write.complete();
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        final Callable<T> write;
+        final SettableFuture<T> future = SettableFuture.create();
+        T result;
+
+        PendingWrite(Callable<T> write) {
+            this.write = write;
+        }
+
+        // Runs inside the batch transaction; a cancelled write is skipped
+        void run() {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                result = write.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void complete() {
+            future.set(result);
+        }
+    }
+}
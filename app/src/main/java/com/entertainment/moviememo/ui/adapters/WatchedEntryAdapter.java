@@ -6,12 +6,12 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.entertainment.moviememo.R;
-import com.entertainment.moviememo.data.entities.WatchedEntry;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
 import com.entertainment.moviememo.data.enums.Language;
 import com.entertainment.moviememo.data.enums.LocationType;
 import com.entertainment.moviememo.data.enums.TimeOfDay;
@@ -23,13 +23,13 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
-public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryAdapter.WatchedEntryViewHolder> {
+public class WatchedEntryAdapter extends PagingDataAdapter<WatchedListRow, WatchedEntryAdapter.WatchedEntryViewHolder> {
 
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
-        void onItemClick(WatchedEntry entry);
-        void onItemLongClick(WatchedEntry entry);
+        void onItemClick(WatchedListRow entry);
+        void onItemLongClick(WatchedListRow entry);
     }
 
     public WatchedEntryAdapter() {
@@ -50,8 +50,10 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
 
     @Override
     public void onBindViewHolder(@NonNull WatchedEntryViewHolder holder, int position) {
-        WatchedEntry entry = getItem(position);
-        holder.bind(entry);
+        WatchedListRow entry = getItem(position);
+        if (entry != null) {
+            holder.bind(entry);
+        }
     }
 
     class WatchedEntryViewHolder extends RecyclerView.ViewHolder {
@@ -90,8 +92,9 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
             itemView.setOnClickListener(v -> {
                 if (listener != null) {
                     int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION) {
-                        listener.onItemClick(getItem(position));
+                    WatchedListRow entry = position != RecyclerView.NO_POSITION ? getItem(position) : null;
+                    if (entry != null) {
+                        listener.onItemClick(entry);
                     }
                 }
             });
@@ -99,8 +102,9 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
             itemView.setOnLongClickListener(v -> {
                 if (listener != null) {
                     int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION) {
-                        listener.onItemLongClick(getItem(position));
+                    WatchedListRow entry = position != RecyclerView.NO_POSITION ? getItem(position) : null;
+                    if (entry != null) {
+                        listener.onItemLongClick(entry);
                         return true;
                     }
                 }
@@ -108,7 +112,7 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
             });
         }
 
-        public void bind(WatchedEntry entry) {
+        public void bind(WatchedListRow entry) {
             textTitle.setText(entry.title);
             
             if (entry.rating != null) {
@@ -223,8 +227,8 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
             }
 
             // Notes - positioned below barrier that includes theater/streaming platform
-            if (entry.notes != null && !entry.notes.isEmpty()) {
-                textNotes.setText("💭 " + entry.notes);
+            if (entry.notesPreview != null && !entry.notesPreview.isEmpty()) {
+                textNotes.setText("💭 " + entry.notesPreview);
                 textNotes.setVisibility(View.VISIBLE);
             } else {
                 textNotes.setVisibility(View.GONE);
@@ -268,14 +272,14 @@ public class WatchedEntryAdapter extends ListAdapter<WatchedEntry, WatchedEntryA
         return "Watched on " + dateString;
     }
 
-    private static final DiffUtil.ItemCallback<WatchedEntry> DIFF_CALLBACK = new DiffUtil.ItemCallback<WatchedEntry>() {
+    private static final DiffUtil.ItemCallback<WatchedListRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<WatchedListRow>() {
         @Override
-        public boolean areItemsTheSame(@NonNull WatchedEntry oldItem, @NonNull WatchedEntry newItem) {
+        public boolean areItemsTheSame(@NonNull WatchedListRow oldItem, @NonNull WatchedListRow newItem) {
             return oldItem.id == newItem.id;
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull WatchedEntry oldItem, @NonNull WatchedEntry newItem) {
+        public boolean areContentsTheSame(@NonNull WatchedListRow oldItem, @NonNull WatchedListRow newItem) {
             return oldItem.equals(newItem);
         }
     };
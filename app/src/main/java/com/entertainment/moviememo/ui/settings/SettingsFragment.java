@@ -3,12 +3,16 @@ package com.entertainment.moviememo.ui.settings;
 import android.Manifest;
 import android.app.AlertDialog;
 import android.app.TimePickerDialog;
+import android.content.ClipData;
+import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.Settings;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -21,29 +25,45 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.entertainment.moviememo.MainActivity;
 import com.entertainment.moviememo.data.database.AppDatabase;
 import com.entertainment.moviememo.data.entities.NotificationSettings;
+import com.entertainment.moviememo.data.enums.DuplicatePolicy;
 import com.entertainment.moviememo.databinding.FragmentSettingsBinding;
 import com.entertainment.moviememo.utils.ExportImportHelper;
 import com.entertainment.moviememo.utils.NotificationHelper;
+import com.entertainment.moviememo.utils.TransferJob;
 import com.entertainment.moviememo.viewmodels.WatchedViewModel;
 import com.entertainment.moviememo.viewmodels.WatchlistViewModel;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 public class SettingsFragment extends Fragment {
 
     private static final int REQUEST_CODE_IMPORT_JSON = 1001;
     private static final int REQUEST_CODE_IMPORT_CSV = 1002;
     private static final int REQUEST_NOTIFICATION_PERMISSION = 1003;
+    private static final int REQUEST_CODE_IMPORT_BACKUP = 1004;
+    private static final int REQUEST_CODE_RESTORE_BACKUP = 1005;
+    private static final int REQUEST_CODE_RESTORE_SNAPSHOT = 1006;
 
     private FragmentSettingsBinding binding;
     private WatchedViewModel watchedViewModel;
     private WatchlistViewModel watchlistViewModel;
     private NotificationSettings currentSettings;
     private boolean isUpdatingUI = false; // Flag to prevent toast when loading settings
+    // Exports and imports run one at a time, off the main thread
+    private final ExecutorService exportImportExecutor = Executors.newSingleThreadExecutor();
 
     @Nullable
     @Override
@@ -164,6 +184,12 @@ public class SettingsFragment extends Fragment {
         binding.buttonExportCsv.setOnClickListener(v -> exportToCsv());
         binding.buttonImportJson.setOnClickListener(v -> importFromJson());
         binding.buttonImportCsv.setOnClickListener(v -> importFromCsv());
+        binding.buttonExportBackup.setOnClickListener(v -> exportBackup(false));
+        binding.buttonExportDelta.setOnClickListener(v -> exportBackup(true));
+        binding.buttonImportBackup.setOnClickListener(v -> importFromBackup());
+        binding.buttonRestoreBackup.setOnClickListener(v -> restoreBackup());
+        binding.buttonExportSnapshot.setOnClickListener(v -> exportSnapshot());
+        binding.buttonRestoreSnapshot.setOnClickListener(v -> restoreSnapshot());
         
         // Day checkbox listeners
         binding.checkboxMonday.setOnCheckedChangeListener((buttonView, isChecked) -> onDayChanged());
@@ -291,29 +317,51 @@ public class SettingsFragment extends Fragment {
     }
 
     private void exportToJson() {
-        new Thread(() -> {
-            ExportImportHelper.ExportResult result = ExportImportHelper.exportToJson(requireContext());
-            requireActivity().runOnUiThread(() -> {
-                if (result.success) {
-                    showExportSuccessDialog("JSON", result.filePath);
-                } else {
-                    Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
-                }
-            });
-        }).start();
+        new AlertDialog.Builder(getContext())
+                .setTitle("📤 Export JSON")
+                .setItems(new String[]{"Plain JSON (.json)", "Compressed JSON (.json.gz)"},
+                        (dialog, which) -> exportToJson(which == 1))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void exportToJson(boolean compress) {
+        runTransfer("📤 Exporting JSON", (context, job) -> ExportImportHelper.exportToJson(context, compress, job), (result, job) -> {
+            if (result.success) {
+                showExportSuccessDialog("JSON", result.filePath);
+            } else if (job.isCancelled()) {
+                Toast.makeText(getContext(), "⏹️ Export cancelled", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     private void exportToCsv() {
-        new Thread(() -> {
-            ExportImportHelper.ExportResult result = ExportImportHelper.exportToCsv(requireContext());
-            requireActivity().runOnUiThread(() -> {
-                if (result.success) {
-                    showExportSuccessDialog("CSV", result.filePath);
-                } else {
-                    Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
-                }
-            });
-        }).start();
+        runTransfer("📤 Exporting CSV", ExportImportHelper::exportToCsv, (result, job) -> {
+            if (result.success) {
+                showExportSuccessDialog("CSV", result.filePath);
+            } else if (job.isCancelled()) {
+                Toast.makeText(getContext(), "⏹️ Export cancelled", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    // A delta holds only what changed since the latest backup and is restored after it
+    private void exportBackup(boolean delta) {
+        runTransfer(delta ? "📤 Exporting changes" : "📤 Exporting backup",
+                (context, job) -> delta ? ExportImportHelper.exportDeltaBackup(context, job)
+                        : ExportImportHelper.exportToBackup(context, job), (result, job) -> {
+            if (result.success) {
+                showExportSuccessDialog(delta ? "a delta backup" : "a backup", result.filePath);
+            } else if (job.isCancelled()) {
+                Toast.makeText(getContext(), "⏹️ Export cancelled", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+            }
+        });
     }
 
     private void showExportSuccessDialog(String format, String filePath) {
@@ -328,7 +376,7 @@ public class SettingsFragment extends Fragment {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("*/*");
         intent.addCategory(Intent.CATEGORY_OPENABLE);
-        String[] mimeTypes = {"application/json", "text/*"};
+        String[] mimeTypes = {"application/json", "application/gzip", "text/*"};
         intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
         startActivityForResult(Intent.createChooser(intent, "Select JSON file"), REQUEST_CODE_IMPORT_JSON);
     }
@@ -342,6 +390,14 @@ public class SettingsFragment extends Fragment {
         startActivityForResult(Intent.createChooser(intent, "Select CSV file"), REQUEST_CODE_IMPORT_CSV);
     }
 
+    private void importFromBackup() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("*/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+        startActivityForResult(Intent.createChooser(intent, "Select backup files"), REQUEST_CODE_IMPORT_BACKUP);
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
@@ -360,74 +416,268 @@ public class SettingsFragment extends Fragment {
     public void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         
-        if (data == null || data.getData() == null) {
+        if (data == null) {
             return;
         }
         
-        Uri uri = data.getData();
-        String filePath = uri.getPath();
+        // Backup imports and restores can pick a full backup and its deltas together
+        List<Uri> uris = new ArrayList<>();
+        ClipData clipData = data.getClipData();
+        if (clipData != null) {
+            for (int i = 0; i < clipData.getItemCount(); i++) {
+                uris.add(clipData.getItemAt(i).getUri());
+            }
+        } else if (data.getData() != null) {
+            uris.add(data.getData());
+        }
+        if (uris.isEmpty()) {
+            return;
+        }
         
-        // Handle different URI schemes
-        if (uri.getScheme().equals("content")) {
-            // For content:// URIs, we need to read the file differently
-            try {
-                java.io.InputStream inputStream = requireContext().getContentResolver().openInputStream(uri);
-                if (inputStream == null) {
-                    Toast.makeText(getContext(), "❌ Unable to open file", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                
-                // Create a temporary file to read from
-                java.io.File tempFile = new java.io.File(requireContext().getCacheDir(), "temp_import_" + System.currentTimeMillis() + 
-                    (requestCode == REQUEST_CODE_IMPORT_JSON ? ".json" : ".csv"));
-                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(tempFile)) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        fos.write(buffer, 0, bytesRead);
-                    }
-                }
-                filePath = tempFile.getAbsolutePath();
-            } catch (Exception e) {
-                Toast.makeText(getContext(), "❌ Error reading file: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        List<String> filePaths = new ArrayList<>();
+        for (Uri uri : uris) {
+            String filePath = readablePath(uri, importExtension(requestCode));
+            if (filePath == null) {
                 return;
             }
+            filePaths.add(filePath);
         }
         
         if (requestCode == REQUEST_CODE_IMPORT_JSON) {
-            importJsonFile(filePath);
+            importJsonFile(filePaths.get(0));
         } else if (requestCode == REQUEST_CODE_IMPORT_CSV) {
-            importCsvFile(filePath);
+            importCsvFile(filePaths.get(0));
+        } else if (requestCode == REQUEST_CODE_IMPORT_BACKUP) {
+            importBackupFiles(filePaths);
+        } else if (requestCode == REQUEST_CODE_RESTORE_BACKUP) {
+            restoreBackupFiles(filePaths);
+        } else if (requestCode == REQUEST_CODE_RESTORE_SNAPSHOT) {
+            restoreSnapshotFile(filePaths.get(0));
         }
     }
 
-    private void importJsonFile(String filePath) {
-        new Thread(() -> {
-            ExportImportHelper.ImportResult result = ExportImportHelper.importFromJson(requireContext(), filePath);
-            requireActivity().runOnUiThread(() -> {
-                if (result.success) {
-                    Toast.makeText(getContext(), 
-                        "✅ Import successful!\nWatched: " + result.watchedCount + "\nWatchlist: " + result.watchlistCount, 
-                        Toast.LENGTH_LONG).show();
-                } else {
-                    Toast.makeText(getContext(), "❌ Import failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+    private static String importExtension(int requestCode) {
+        switch (requestCode) {
+            case REQUEST_CODE_IMPORT_JSON:
+                return ".json";
+            case REQUEST_CODE_IMPORT_CSV:
+                return ".csv";
+            case REQUEST_CODE_RESTORE_SNAPSHOT:
+                return ".db";
+            default:
+                return ".mmbk";
+        }
+    }
+
+    // A path the importers can open, or null after telling the user why there is none
+    @Nullable
+    private String readablePath(Uri uri, String extension) {
+        // Handle different URI schemes
+        if (!"content".equals(uri.getScheme())) {
+            return uri.getPath();
+        }
+        // For content:// URIs, copy the file to the cache first
+        try (java.io.InputStream inputStream = requireContext().getContentResolver().openInputStream(uri)) {
+            if (inputStream == null) {
+                Toast.makeText(getContext(), "❌ Unable to open file", Toast.LENGTH_SHORT).show();
+                return null;
+            }
+            
+            java.io.File tempFile = java.io.File.createTempFile("temp_import_", extension, requireContext().getCacheDir());
+            try (java.io.FileOutputStream fos = new java.io.FileOutputStream(tempFile)) {
+                byte[] buffer = new byte[8192];
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    fos.write(buffer, 0, bytesRead);
                 }
-            });
-        }).start();
+            }
+            return tempFile.getAbsolutePath();
+        } catch (Exception e) {
+            Toast.makeText(getContext(), "❌ Error reading file: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            return null;
+        }
+    }
+
+    private void importJsonFile(String filePath) {
+        chooseDuplicatePolicy(policy -> runTransfer("📥 Importing JSON",
+                (context, job) -> ExportImportHelper.importFromJson(context, filePath, policy, job),
+                this::showImportResult));
     }
 
     private void importCsvFile(String filePath) {
-        new Thread(() -> {
-            ExportImportHelper.ImportResult result = ExportImportHelper.importFromCsv(requireContext(), filePath);
-            requireActivity().runOnUiThread(() -> {
-                if (result.success) {
-                    Toast.makeText(getContext(), 
-                        "✅ Import successful!\nWatched: " + result.watchedCount + "\nWatchlist: " + result.watchlistCount, 
-                        Toast.LENGTH_LONG).show();
-                } else {
-                    Toast.makeText(getContext(), "❌ Import failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+        chooseDuplicatePolicy(policy -> runTransfer("📥 Importing CSV",
+                (context, job) -> ExportImportHelper.importFromCsv(context, filePath, policy, job),
+                this::showImportResult));
+    }
+
+    // Asks what to do with movies the library already has before an import starts
+    private void chooseDuplicatePolicy(Consumer<DuplicatePolicy> onChosen) {
+        DuplicatePolicy[] policies = DuplicatePolicy.values();
+        String[] names = new String[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            names[i] = policies[i].getDisplayName();
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Movies you already have")
+                .setItems(names, (dialog, which) -> onChosen.accept(policies[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Backup rows keep their ids, so they update the matching rows instead of adding duplicates.
+    // Deltas picked together are applied in chain order.
+    private void importBackupFiles(List<String> filePaths) {
+        runTransfer("📥 Importing backup",
+                (context, job) -> ExportImportHelper.importBackupChain(context, filePaths, job),
+                this::showImportResult);
+    }
+
+    private void showImportResult(ExportImportHelper.ImportResult result, TransferJob job) {
+        if (result.success) {
+            Toast.makeText(getContext(), 
+                "✅ Import successful!\nWatched: " + result.watchedCount + "\nWatchlist: " + result.watchlistCount
+                        + (result.duplicateCount > 0 ? "\nAlready had: " + result.duplicateCount : "")
+                        + (result.skippedCount > 0 ? "\nSkipped, no title or date: " + result.skippedCount : ""), 
+                Toast.LENGTH_LONG).show();
+        } else if (job.isCancelled()) {
+            // Chunks committed before the cancel stay imported
+            Toast.makeText(getContext(), 
+                "⏹️ Import cancelled\nWatched: " + result.watchedCount + "\nWatchlist: " + result.watchlistCount, 
+                Toast.LENGTH_LONG).show();
+        } else {
+            Toast.makeText(getContext(), "❌ Import failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private void restoreBackup() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("*/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+        startActivityForResult(Intent.createChooser(intent, "Select a backup and its deltas"), REQUEST_CODE_RESTORE_BACKUP);
+    }
+
+    private void restoreBackupFiles(List<String> filePaths) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("♻️ Restore Backup")
+                .setMessage("This replaces all watched movies and your watchlist with the backup. "
+                        + "Genres and notification settings are kept.")
+                .setPositiveButton("Restore", (dialog, which) -> runTransfer("♻️ Restoring backup",
+                        (context, job) -> ExportImportHelper.restoreBackupChain(context, filePaths, job),
+                        this::showRestoreResult))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showRestoreResult(ExportImportHelper.ImportResult result, TransferJob job) {
+        if (result.success) {
+            new AlertDialog.Builder(requireContext())
+                    .setTitle("✅ Restore Successful")
+                    .setMessage("Watched: " + result.watchedCount + "\nWatchlist: " + result.watchlistCount
+                            + "\n\nMovieMemo will restart to load the restored library.")
+                    .setCancelable(false)
+                    .setPositiveButton("OK", (dialog, which) -> restartApp())
+                    .show();
+        } else if (job.isCancelled()) {
+            // The live database is only swapped at the very end, so nothing changed
+            Toast.makeText(getContext(), "⏹️ Restore cancelled", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), "❌ Restore failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private void exportSnapshot() {
+        new AlertDialog.Builder(getContext())
+                .setTitle("💾 Export Snapshot")
+                .setItems(new String[]{"Database file (.db)", "Compressed (.db.gz)"},
+                        (dialog, which) -> exportSnapshot(which == 1))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void exportSnapshot(boolean compress) {
+        runTransfer("💾 Exporting snapshot", (context, job) -> ExportImportHelper.exportSnapshot(context, compress, job),
+                (result, job) -> {
+                    if (result.success) {
+                        showExportSuccessDialog("a snapshot", result.filePath);
+                    } else if (job.isCancelled()) {
+                        Toast.makeText(getContext(), "⏹️ Export cancelled", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(getContext(), "❌ Export failed: " + result.errorMessage, Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    private void restoreSnapshot() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("*/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        startActivityForResult(Intent.createChooser(intent, "Select snapshot"), REQUEST_CODE_RESTORE_SNAPSHOT);
+    }
+
+    private void restoreSnapshotFile(String filePath) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("💾 Restore Snapshot")
+                .setMessage("This replaces everything in MovieMemo, including genres and notification settings, "
+                        + "with the snapshot.")
+                .setPositiveButton("Restore", (dialog, which) -> runTransfer("💾 Restoring snapshot",
+                        (context, job) -> ExportImportHelper.restoreSnapshot(context, filePath, job),
+                        this::showRestoreResult))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Every screen's ViewModel still observes the database a restore closed. recreate() would keep
+    // those ViewModels, so the activity is started again in a fresh task, which clears them.
+    private void restartApp() {
+        Intent intent = new Intent(requireContext(), MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+    }
+
+    // Runs an export or import on the executor behind a progress dialog whose button cancels it
+    private <T> void runTransfer(String title, BiFunction<Context, TransferJob, T> transfer,
+                                 BiConsumer<T, TransferJob> onResult) {
+        Context context = requireContext().getApplicationContext();
+        Executor mainExecutor = ContextCompat.getMainExecutor(context);
+        AlertDialog dialog = new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setMessage("Starting…")
+                .setCancelable(false)
+                .create();
+        TransferJob job = new TransferJob(progress -> mainExecutor.execute(() -> {
+            if (dialog.isShowing()) {
+                dialog.setMessage(formatProgress(context, progress));
+            }
+        }));
+        dialog.setButton(DialogInterface.BUTTON_NEGATIVE, "Cancel", (d, which) -> job.cancel());
+        dialog.show();
+
+        exportImportExecutor.execute(() -> {
+            T result = transfer.apply(context, job);
+            mainExecutor.execute(() -> {
+                if (!isAdded()) {
+                    return;
                 }
+                dialog.dismiss();
+                onResult.accept(result, job);
             });
-        }).start();
+        });
+    }
+
+    private static String formatProgress(Context context, TransferJob.Progress progress) {
+        String text = progress.rows + " rows · " + Formatter.formatShortFileSize(context, progress.bytes) + "\n"
+                + Math.round(progress.rowsPerSecond) + " rows/s";
+        if (progress.etaMs >= 0) {
+            text += " · about " + Math.max(1, (progress.etaMs + 999) / 1000) + " s left";
+        }
+        return text;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        // Exports and imports already started still finish; the executor takes nothing new
+        exportImportExecutor.shutdown();
     }
 }
\ No newline at end of file
@@ -17,7 +17,7 @@ import com.entertainment.moviememo.utils.DurationUtils;
 import com.entertainment.moviememo.ui.adapters.GenreStatsAdapter;
 import com.entertainment.moviememo.ui.adapters.MonthlyStatsAdapter;
 import com.entertainment.moviememo.data.entities.KeyCount;
-import com.entertainment.moviememo.data.entities.MonthCount;
+import com.entertainment.moviememo.data.entities.StatsSnapshot;
 import com.entertainment.moviememo.data.enums.LocationType;
 import com.entertainment.moviememo.data.enums.TimeOfDay;
 import com.entertainment.moviememo.data.enums.Language;
@@ -90,149 +90,103 @@ public class StatsFragment extends Fragment {
             binding.progressBar.setVisibility(View.VISIBLE);
         }
 
-        // Total movies count
-        viewModel.getWatchedCount().observe(getViewLifecycleOwner(), count -> {
-            if (count != null && binding.textTotalMoviesValue != null) {
-                binding.textTotalMoviesValue.setText(String.valueOf(count));
+        // One snapshot per change; every card binds from it
+        viewModel.getStatsSnapshot().observe(getViewLifecycleOwner(), snapshot -> {
+            if (snapshot != null) {
+                bindSnapshot(snapshot);
             }
-        });
 
-        // This month movies count
-        viewModel.getThisMonthCount().observe(getViewLifecycleOwner(), count -> {
-            if (count != null && binding.textThisMonthMoviesValue != null) {
-                binding.textThisMonthMoviesValue.setText(String.valueOf(count));
+            // Hide loading when data is loaded
+            if (binding.progressBar != null) {
+                binding.progressBar.setVisibility(View.GONE);
             }
         });
+    }
+
+    private void bindSnapshot(StatsSnapshot snapshot) {
+        // Total movies count
+        if (binding.textTotalMoviesValue != null) {
+            binding.textTotalMoviesValue.setText(String.valueOf(snapshot.watchedCount));
+        }
+
+        // This month movies count
+        if (binding.textThisMonthMoviesValue != null) {
+            binding.textThisMonthMoviesValue.setText(String.valueOf(snapshot.thisMonthCount));
+        }
 
         // Total spend
-        viewModel.getTotalSpendCents().observe(getViewLifecycleOwner(), spendCents -> {
-            if (spendCents != null && binding.textTotalSpendValue != null) {
-                String spendText = String.format("$%.2f", spendCents / 100.0);
-                binding.textTotalSpendValue.setText(spendText);
-            }
-        });
+        if (binding.textTotalSpendValue != null) {
+            binding.textTotalSpendValue.setText(String.format("$%.2f", snapshot.totalSpendCents / 100.0));
+        }
 
         // This month spend
-        viewModel.getThisMonthSpendCents().observe(getViewLifecycleOwner(), spendCents -> {
-            if (spendCents != null && binding.textThisMonthSpendValue != null) {
-                String spendText = String.format("$%.2f", spendCents / 100.0);
-                binding.textThisMonthSpendValue.setText(spendText);
-            }
-        });
+        if (binding.textThisMonthSpendValue != null) {
+            binding.textThisMonthSpendValue.setText(String.format("$%.2f", snapshot.thisMonthSpendCents / 100.0));
+        }
 
         // Average spend (theater movies only)
-        viewModel.getAvgSpendCents().observe(getViewLifecycleOwner(), avgSpendCents -> {
-            if (avgSpendCents != null && binding.textAvgSpendValue != null) {
-                String avgSpendText = String.format("$%.2f", avgSpendCents / 100.0);
-                binding.textAvgSpendValue.setText(avgSpendText);
-            }
-        });
+        if (binding.textAvgSpendValue != null) {
+            binding.textAvgSpendValue.setText(String.format("$%.2f", snapshot.avgSpendCents / 100.0));
+        }
 
         // This month average spend (theater movies only)
-        viewModel.getThisMonthAvgSpendCents().observe(getViewLifecycleOwner(), avgSpendCents -> {
-            if (avgSpendCents != null && binding.textThisMonthAvgSpendValue != null) {
-                String avgSpendText = String.format("$%.2f", avgSpendCents / 100.0);
-                binding.textThisMonthAvgSpendValue.setText(avgSpendText);
-            }
-        });
+        if (binding.textThisMonthAvgSpendValue != null) {
+            binding.textThisMonthAvgSpendValue.setText(String.format("$%.2f", snapshot.thisMonthAvgSpendCents / 100.0));
+        }
 
         // Weekday count
-        viewModel.getWeekdayCount().observe(getViewLifecycleOwner(), count -> {
-            if (count != null && binding.textWeekdaysValue != null) {
-                binding.textWeekdaysValue.setText(String.valueOf(count));
-            }
-        });
+        if (binding.textWeekdaysValue != null) {
+            binding.textWeekdaysValue.setText(String.valueOf(snapshot.weekdayCount));
+        }
 
         // Weekend count
-        viewModel.getWeekendCount().observe(getViewLifecycleOwner(), count -> {
-            if (count != null && binding.textWeekendsValue != null) {
-                binding.textWeekendsValue.setText(String.valueOf(count));
-            }
-        });
+        if (binding.textWeekendsValue != null) {
+            binding.textWeekendsValue.setText(String.valueOf(snapshot.weekendCount));
+        }
 
         // Watch time in different units
-        viewModel.getTotalDurationMinutes().observe(getViewLifecycleOwner(), totalMinutes -> {
-            if (totalMinutes != null) {
-                // Total minutes
-                if (binding.textTotalMinutesValue != null) {
-                    binding.textTotalMinutesValue.setText(String.format("%,d", totalMinutes));
-                }
-                
-                // Total hours
-                if (binding.textTotalHoursValue != null) {
-                    double hours = totalMinutes / 60.0;
-                    binding.textTotalHoursValue.setText(String.format("%.1f", hours));
-                }
-                
-                // Total days
-                if (binding.textTotalDaysValue != null) {
-                    double days = totalMinutes / (60.0 * 24.0);
-                    binding.textTotalDaysValue.setText(String.format("%.1f", days));
-                }
-            }
-        });
-
-        // Observe genre statistics
-        viewModel.getTopGenres().observe(getViewLifecycleOwner(), genres -> {
-            if (genres != null) {
-                genreAdapter.updateGenres(genres);
-            }
-        });
+        int totalMinutes = snapshot.totalDurationMinutes;
+        if (binding.textTotalMinutesValue != null) {
+            binding.textTotalMinutesValue.setText(String.format("%,d", totalMinutes));
+        }
+        if (binding.textTotalHoursValue != null) {
+            double hours = totalMinutes / 60.0;
+            binding.textTotalHoursValue.setText(String.format("%.1f", hours));
+        }
+        if (binding.textTotalDaysValue != null) {
+            double days = totalMinutes / (60.0 * 24.0);
+            binding.textTotalDaysValue.setText(String.format("%.1f", days));
+        }
 
-        // Observe location statistics
-        viewModel.getMoviesByLocation().observe(getViewLifecycleOwner(), locations -> {
-            if (locations != null) {
-                List<KeyCount> formattedLocations = new ArrayList<>();
-                for (KeyCount location : locations) {
-                    String displayName = getLocationDisplayName(location.category);
-                    formattedLocations.add(new KeyCount(displayName, location.cnt));
-                }
-                locationAdapter.updateGenres(formattedLocations);
-            }
-        });
+        // Genre statistics
+        genreAdapter.updateGenres(snapshot.topGenres);
 
-        // Observe time of day statistics
-        viewModel.getTopTimeOfDay().observe(getViewLifecycleOwner(), times -> {
-            if (times != null) {
-                List<KeyCount> formattedTimes = new ArrayList<>();
-                for (KeyCount time : times) {
-                    String displayName = getTimeDisplayName(time.category);
-                    formattedTimes.add(new KeyCount(displayName, time.cnt));
-                }
-                timeAdapter.updateGenres(formattedTimes);
-            }
-        });
+        // Location statistics
+        List<KeyCount> formattedLocations = new ArrayList<>();
+        for (KeyCount location : snapshot.moviesByLocation) {
+            formattedLocations.add(new KeyCount(getLocationDisplayName(location.category), location.cnt));
+        }
+        locationAdapter.updateGenres(formattedLocations);
 
-        // Observe language statistics
-        viewModel.getMoviesByLanguage().observe(getViewLifecycleOwner(), languages -> {
-            if (languages != null) {
-                List<KeyCount> formattedLanguages = new ArrayList<>();
-                for (KeyCount language : languages) {
-                    String displayName = getLanguageDisplayName(language.category);
-                    formattedLanguages.add(new KeyCount(displayName, language.cnt));
-                }
-                languageAdapter.updateGenres(formattedLanguages);
-            }
-        });
+        // Time of day statistics
+        List<KeyCount> formattedTimes = new ArrayList<>();
+        for (KeyCount time : snapshot.topTimeOfDay) {
+            formattedTimes.add(new KeyCount(getTimeDisplayName(time.category), time.cnt));
+        }
+        timeAdapter.updateGenres(formattedTimes);
 
-        // Observe companion statistics
-        viewModel.getMoviesByCompanion().observe(getViewLifecycleOwner(), companions -> {
-            if (companions != null) {
-                companionAdapter.updateGenres(companions);
-            }
-        });
+        // Language statistics
+        List<KeyCount> formattedLanguages = new ArrayList<>();
+        for (KeyCount language : snapshot.moviesByLanguage) {
+            formattedLanguages.add(new KeyCount(getLanguageDisplayName(language.category), language.cnt));
+        }
+        languageAdapter.updateGenres(formattedLanguages);
 
-        // Observe monthly statistics
-        viewModel.getMoviesPerMonth().observe(getViewLifecycleOwner(), months -> {
-            if (months != null) {
-                monthlyAdapter.updateMonthlyStats(months);
-            }
-        });
+        // Companion statistics
+        companionAdapter.updateGenres(snapshot.moviesByCompanion);
 
-        // Hide loading when data is loaded
-        if (binding.progressBar != null) {
-            binding.progressBar.setVisibility(View.GONE);
-        }
+        // Monthly statistics
+        monthlyAdapter.updateMonthlyStats(snapshot.moviesPerMonth);
     }
     
     private String getLocationDisplayName(String locationType) {
@@ -19,6 +19,7 @@ import com.entertainment.moviememo.R;
 import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.enums.Language;
 import com.entertainment.moviememo.data.enums.LocationType;
+import com.entertainment.moviememo.data.enums.SuggestionField;
 import com.entertainment.moviememo.data.enums.TimeOfDay;
 import com.entertainment.moviememo.databinding.FragmentAddWatchedBinding;
 import com.entertainment.moviememo.viewmodels.WatchedViewModel;
@@ -122,33 +123,9 @@ public class AddWatchedFragment extends Fragment {
     }
 
     private void setupStreamingPlatformAutocomplete() {
-        // Get all previous streaming platforms from the database
-        viewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> platforms = new ArrayList<>();
-            // Add common streaming platforms as defaults
-            platforms.add("Netflix");
-            platforms.add("Prime Video");
-            platforms.add("Disney+");
-            platforms.add("Hulu");
-            platforms.add("HBO Max");
-            platforms.add("Paramount+");
-            platforms.add("Apple TV+");
-            platforms.add("Peacock");
-            platforms.add("YouTube");
-            platforms.add("Crunchyroll");
-            
-            for (WatchedEntry entry : entries) {
-                if (entry.streamingPlatform != null && !entry.streamingPlatform.trim().isEmpty()) {
-                    String trimmed = entry.streamingPlatform.trim();
-                    if (!platforms.contains(trimmed)) {
-                        platforms.add(trimmed);
-                    }
-                }
-            }
-            
-            // Set up the autocomplete adapter
+        viewModel.getSuggestions(SuggestionField.STREAMING_PLATFORM).observe(getViewLifecycleOwner(), values -> {
             ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                R.layout.autocomplete_item, platforms);
+                R.layout.autocomplete_item, values);
             binding.editStreamingPlatform.setAdapter(adapter);
         });
     }
@@ -177,65 +154,25 @@ public class AddWatchedFragment extends Fragment {
     }
 
     private void setupCompanionsAutocomplete() {
-        // Get all previous companions from the database
-        viewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> companions = new ArrayList<>();
-            for (WatchedEntry entry : entries) {
-                if (entry.companions != null && !entry.companions.trim().isEmpty()) {
-                    // Split companions by comma and add each one
-                    String[] companionArray = entry.companions.split(",");
-                    for (String companion : companionArray) {
-                        String trimmed = companion.trim();
-                        if (!trimmed.isEmpty() && !companions.contains(trimmed)) {
-                            companions.add(trimmed);
-                        }
-                    }
-                }
-            }
-            
-            // Set up the autocomplete adapter
+        viewModel.getSuggestions(SuggestionField.COMPANION).observe(getViewLifecycleOwner(), values -> {
             ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                android.R.layout.simple_dropdown_item_1line, companions);
+                android.R.layout.simple_dropdown_item_1line, values);
             binding.editCompanions.setAdapter(adapter);
         });
     }
 
     private void setupTheaterAutocomplete() {
-        // Get all previous theater names from the database
-        viewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> theaters = new ArrayList<>();
-            for (WatchedEntry entry : entries) {
-                if (entry.theaterName != null && !entry.theaterName.trim().isEmpty()) {
-                    String trimmed = entry.theaterName.trim();
-                    if (!theaters.contains(trimmed)) {
-                        theaters.add(trimmed);
-                    }
-                }
-            }
-            
-            // Set up the autocomplete adapter
+        viewModel.getSuggestions(SuggestionField.THEATER_NAME).observe(getViewLifecycleOwner(), values -> {
             ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                R.layout.autocomplete_item, theaters);
+                R.layout.autocomplete_item, values);
             binding.editTheaterName.setAdapter(adapter);
         });
     }
 
     private void setupCityAutocomplete() {
-        // Get all previous cities from the database
-        viewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> cities = new ArrayList<>();
-            for (WatchedEntry entry : entries) {
-                if (entry.city != null && !entry.city.trim().isEmpty()) {
-                    String trimmed = entry.city.trim();
-                    if (!cities.contains(trimmed)) {
-                        cities.add(trimmed);
-                    }
-                }
-            }
-            
-            // Set up the autocomplete adapter
+        viewModel.getSuggestions(SuggestionField.CITY).observe(getViewLifecycleOwner(), values -> {
             ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                R.layout.autocomplete_item, cities);
+                R.layout.autocomplete_item, values);
             binding.editCity.setAdapter(adapter);
         });
     }
@@ -12,16 +12,17 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
-import com.entertainment.moviememo.data.entities.WatchedEntry;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
 import com.entertainment.moviememo.databinding.FragmentWatchedListBinding;
 import com.entertainment.moviememo.viewmodels.WatchedViewModel;
-import com.entertainment.moviememo.data.enums.LocationType;
+import com.entertainment.moviememo.data.enums.WatchedSort;
+import com.entertainment.moviememo.data.query.WatchedQuery;
 import com.entertainment.moviememo.ui.adapters.WatchedEntryAdapter;
 
-import java.util.ArrayList;
-import java.util.List;
+import kotlin.Unit;
 
 public class WatchedListFragment extends Fragment {
 
@@ -29,7 +30,9 @@ public class WatchedListFragment extends Fragment {
     private WatchedViewModel viewModel;
     private WatchedEntryAdapter adapter;
     private String currentFilter = "ALL"; // ALL, HOME, THEATER
-    private String currentSort = "DATE_DESC"; // DATE_DESC, DATE_ASC, RATING_DESC, RATING_ASC, SPEND_DESC, SPEND_ASC
+    private String currentSort = "DATE_DESC"; // WatchedSort name
+    private String currentQuery = "";
+    private CharSequence defaultEmptyText;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -42,6 +45,8 @@ public class WatchedListFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         
+        defaultEmptyText = binding.textEmptyState.getText();
+        
         setupViewModel();
         setupRecyclerView();
         setupSearch();
@@ -66,12 +71,12 @@ public class WatchedListFragment extends Fragment {
         // Set up click listeners
         adapter.setOnItemClickListener(new WatchedEntryAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(WatchedEntry entry) {
+            public void onItemClick(WatchedListRow entry) {
                 editMovie(entry);
             }
 
             @Override
-            public void onItemLongClick(WatchedEntry entry) {
+            public void onItemLongClick(WatchedListRow entry) {
                 showDeleteConfirmation(entry);
             }
         });
@@ -87,12 +92,8 @@ public class WatchedListFragment extends Fragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                String query = s.toString().trim();
-                if (query.isEmpty()) {
-                    observeData(); // Show all data
-                } else {
-                    searchMovies(query);
-                }
+                currentQuery = s.toString().trim();
+                applyQuery();
             }
 
             @Override
@@ -107,19 +108,19 @@ public class WatchedListFragment extends Fragment {
         binding.buttonFilterAll.setOnClickListener(v -> {
             currentFilter = "ALL";
             updateFilterButtons("ALL");
-            observeData();
+            applyQuery();
         });
         
         binding.buttonFilterHome.setOnClickListener(v -> {
             currentFilter = "HOME";
             updateFilterButtons("HOME");
-            filterByLocation(LocationType.HOME.name());
+            applyQuery();
         });
         
         binding.buttonFilterTheater.setOnClickListener(v -> {
             currentFilter = "THEATER";
             updateFilterButtons("THEATER");
-            filterByLocation(LocationType.THEATER.name());
+            applyQuery();
         });
     }
     
@@ -182,93 +183,16 @@ public class WatchedListFragment extends Fragment {
                     }
                     
                     // Apply sorting and close dialog
-                    applySorting();
+                    applyQuery();
                     dialog.dismiss();
                 })
                 .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
                 .show();
     }
     
-    private void applySorting() {
-        if (currentFilter.equals("ALL")) {
-            observeData();
-        } else {
-            // Reapply current filter with new sorting
-            if (currentFilter.equals("HOME")) {
-                filterByLocation(LocationType.HOME.name());
-            } else if (currentFilter.equals("THEATER")) {
-                filterByLocation(LocationType.THEATER.name());
-            }
-        }
-    }
-    
-    private void filterByLocation(String locationType) {
-        binding.progressBar.setVisibility(View.VISIBLE);
-        binding.recyclerViewWatched.setVisibility(View.GONE);
-        binding.textEmptyState.setVisibility(View.GONE);
-        
-        viewModel.getWatchedByLocation(locationType).observe(getViewLifecycleOwner(), watchedEntries -> {
-            binding.progressBar.setVisibility(View.GONE);
-            
-            if (watchedEntries != null && !watchedEntries.isEmpty()) {
-                adapter.submitList(watchedEntries);
-                binding.textEmptyState.setVisibility(View.GONE);
-                binding.recyclerViewWatched.setVisibility(View.VISIBLE);
-            } else {
-                adapter.submitList(new ArrayList<>());
-                binding.textEmptyState.setText("No movies watched at " + locationType.toLowerCase());
-                binding.textEmptyState.setVisibility(View.VISIBLE);
-                binding.recyclerViewWatched.setVisibility(View.GONE);
-            }
-        });
-    }
-
-    private void searchMovies(String query) {
-        // If there's an active filter, we need to filter the search results
-        if (!currentFilter.equals("ALL")) {
-            // For now, just show all results and let user clear search to see filtered results
-            // This could be enhanced to search within filtered results
-            viewModel.searchWatched(query).observe(getViewLifecycleOwner(), watchedEntries -> {
-                if (watchedEntries != null && !watchedEntries.isEmpty()) {
-                    // Filter the search results by current location filter
-                    List<WatchedEntry> filteredEntries = new ArrayList<>();
-                    for (WatchedEntry entry : watchedEntries) {
-                        if (currentFilter.equals("HOME") && entry.locationType.equals("HOME")) {
-                            filteredEntries.add(entry);
-                        } else if (currentFilter.equals("THEATER") && entry.locationType.equals("THEATER")) {
-                            filteredEntries.add(entry);
-                        }
-                    }
-                    
-                    if (!filteredEntries.isEmpty()) {
-                        adapter.submitList(filteredEntries);
-                        binding.textEmptyState.setVisibility(View.GONE);
-                        binding.recyclerViewWatched.setVisibility(View.VISIBLE);
-                    } else {
-                        binding.textEmptyState.setText("No movies found matching \"" + query + "\" in " + currentFilter.toLowerCase());
-                        binding.textEmptyState.setVisibility(View.VISIBLE);
-                        binding.recyclerViewWatched.setVisibility(View.GONE);
-                    }
-                } else {
-                    binding.textEmptyState.setText("No movies found matching \"" + query + "\"");
-                    binding.textEmptyState.setVisibility(View.VISIBLE);
-                    binding.recyclerViewWatched.setVisibility(View.GONE);
-                }
-            });
-        } else {
-            // No filter active, show all search results
-            viewModel.searchWatched(query).observe(getViewLifecycleOwner(), watchedEntries -> {
-                if (watchedEntries != null && !watchedEntries.isEmpty()) {
-                    adapter.submitList(watchedEntries);
-                    binding.textEmptyState.setVisibility(View.GONE);
-                    binding.recyclerViewWatched.setVisibility(View.VISIBLE);
-                } else {
-                    binding.textEmptyState.setText("No movies found matching \"" + query + "\"");
-                    binding.textEmptyState.setVisibility(View.VISIBLE);
-                    binding.recyclerViewWatched.setVisibility(View.GONE);
-                }
-            });
-        }
+    private void applyQuery() {
+        String locationType = currentFilter.equals("ALL") ? null : currentFilter;
+        viewModel.setWatchedQuery(new WatchedQuery(WatchedSort.valueOf(currentSort), locationType, currentQuery));
     }
 
     private void observeData() {
@@ -277,52 +201,57 @@ public class WatchedListFragment extends Fragment {
         binding.recyclerViewWatched.setVisibility(View.GONE);
         binding.textEmptyState.setVisibility(View.GONE);
         
-        // Get the appropriate LiveData based on current sort
-        androidx.lifecycle.LiveData<List<WatchedEntry>> liveData = getSortedLiveData();
+        // Pages are loaded on demand as the list scrolls
+        viewModel.getPagedWatched().observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
         
-        liveData.observe(getViewLifecycleOwner(), watchedEntries -> {
+        adapter.addLoadStateListener(loadStates -> {
+            if (binding == null) {
+                return Unit.INSTANCE;
+            }
+            if (loadStates.getRefresh() instanceof LoadState.Loading) {
+                if (adapter.getItemCount() == 0) {
+                    binding.progressBar.setVisibility(View.VISIBLE);
+                }
+                return Unit.INSTANCE;
+            }
+            
             binding.progressBar.setVisibility(View.GONE);
             
-            if (watchedEntries != null && !watchedEntries.isEmpty()) {
-                adapter.submitList(watchedEntries);
+            if (adapter.getItemCount() > 0) {
                 binding.textEmptyState.setVisibility(View.GONE);
                 binding.recyclerViewWatched.setVisibility(View.VISIBLE);
             } else {
-                adapter.submitList(new ArrayList<>());
+                binding.textEmptyState.setText(getEmptyStateText());
                 binding.textEmptyState.setVisibility(View.VISIBLE);
                 binding.recyclerViewWatched.setVisibility(View.GONE);
             }
+            return Unit.INSTANCE;
         });
     }
     
-    private androidx.lifecycle.LiveData<List<WatchedEntry>> getSortedLiveData() {
-        switch (currentSort) {
-            case "DATE_DESC":
-                return viewModel.getWatchedByDateDesc();
-            case "DATE_ASC":
-                return viewModel.getWatchedByDateAsc();
-            case "RATING_DESC":
-                return viewModel.getWatchedByRatingDesc();
-            case "RATING_ASC":
-                return viewModel.getWatchedByRatingAsc();
-            case "SPEND_DESC":
-                return viewModel.getWatchedBySpendDesc();
-            case "SPEND_ASC":
-                return viewModel.getWatchedBySpendAsc();
-            default:
-                return viewModel.getWatchedByDateDesc();
+    private CharSequence getEmptyStateText() {
+        if (!currentQuery.isEmpty()) {
+            if (!currentFilter.equals("ALL")) {
+                return "No movies found matching \"" + currentQuery + "\" in " + currentFilter.toLowerCase();
+            }
+            return "No movies found matching \"" + currentQuery + "\"";
+        }
+        if (!currentFilter.equals("ALL")) {
+            return "No movies watched at " + currentFilter.toLowerCase();
         }
+        return defaultEmptyText;
     }
 
-    private void editMovie(WatchedEntry entry) {
-        EditWatchedFragment fragment = EditWatchedFragment.newInstance(entry);
+    private void editMovie(WatchedListRow entry) {
+        EditWatchedFragment fragment = EditWatchedFragment.newInstance(entry.id);
         getParentFragmentManager().beginTransaction()
                 .replace(android.R.id.content, fragment)
                 .addToBackStack(null)
                 .commit();
     }
 
-    private void showDeleteConfirmation(WatchedEntry entry) {
+    private void showDeleteConfirmation(WatchedListRow entry) {
         new android.app.AlertDialog.Builder(getContext())
                 .setTitle("Delete Movie")
                 .setMessage("Are you sure you want to delete \"" + entry.title + "\"?")
@@ -334,8 +263,8 @@ public class WatchedListFragment extends Fragment {
                 .show();
     }
 
-    private void deleteMovie(WatchedEntry entry) {
-        viewModel.deleteWatched(entry);
+    private void deleteMovie(WatchedListRow entry) {
+        viewModel.deleteWatched(entry.id);
         Toast.makeText(getContext(), "Movie deleted successfully!", Toast.LENGTH_SHORT).show();
     }
 
@@ -18,17 +18,14 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.entertainment.moviememo.R;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
-import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.enums.Language;
+import com.entertainment.moviememo.data.enums.SuggestionField;
 import com.entertainment.moviememo.data.enums.WhereToWatch;
 import com.entertainment.moviememo.databinding.FragmentAddWatchlistBinding;
 import com.entertainment.moviememo.viewmodels.WatchlistViewModel;
-import com.entertainment.moviememo.viewmodels.WatchedViewModel;
 import com.entertainment.moviememo.utils.NotificationHelper;
 
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 
 public class AddWatchlistFragment extends Fragment {
 
@@ -85,47 +82,10 @@ public class AddWatchlistFragment extends Fragment {
     }
 
     private void setupOttPlatformAutocomplete() {
-        // Get all previous streaming platforms from watched entries and watchlist items
-        WatchedViewModel watchedViewModel = new ViewModelProvider(this).get(WatchedViewModel.class);
-        watchedViewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> platforms = new ArrayList<>();
-            // Add common streaming platforms as defaults
-            platforms.add("Netflix");
-            platforms.add("Prime Video");
-            platforms.add("Disney+");
-            platforms.add("Hulu");
-            platforms.add("HBO Max");
-            platforms.add("Paramount+");
-            platforms.add("Apple TV+");
-            platforms.add("Peacock");
-            platforms.add("YouTube");
-            platforms.add("Crunchyroll");
-            
-            for (WatchedEntry entry : entries) {
-                if (entry.streamingPlatform != null && !entry.streamingPlatform.trim().isEmpty()) {
-                    String trimmed = entry.streamingPlatform.trim();
-                    if (!platforms.contains(trimmed)) {
-                        platforms.add(trimmed);
-                    }
-                }
-            }
-            
-            // Also get from watchlist items
-            viewModel.getAllWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
-                for (WatchlistItem item : watchlistItems) {
-                    if (item.streamingPlatform != null && !item.streamingPlatform.trim().isEmpty()) {
-                        String trimmed = item.streamingPlatform.trim();
-                        if (!platforms.contains(trimmed)) {
-                            platforms.add(trimmed);
-                        }
-                    }
-                }
-                
-                // Set up the autocomplete adapter
-                ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                    R.layout.autocomplete_item, platforms);
-                binding.editOttPlatform.setAdapter(adapter);
-            });
+        viewModel.getSuggestions(SuggestionField.STREAMING_PLATFORM).observe(getViewLifecycleOwner(), values -> {
+            ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
+                R.layout.autocomplete_item, values);
+            binding.editOttPlatform.setAdapter(adapter);
         });
     }
 
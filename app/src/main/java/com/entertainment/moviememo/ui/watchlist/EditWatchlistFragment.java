@@ -17,17 +17,14 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.entertainment.moviememo.R;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
-import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.enums.Language;
+import com.entertainment.moviememo.data.enums.SuggestionField;
 import com.entertainment.moviememo.data.enums.WhereToWatch;
 import com.entertainment.moviememo.databinding.FragmentEditWatchlistBinding;
 import com.entertainment.moviememo.viewmodels.WatchlistViewModel;
-import com.entertainment.moviememo.viewmodels.WatchedViewModel;
 import com.entertainment.moviememo.utils.NotificationHelper;
 
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 
 public class EditWatchlistFragment extends Fragment {
 
@@ -168,47 +165,10 @@ public class EditWatchlistFragment extends Fragment {
     }
 
     private void setupOttPlatformAutocomplete() {
-        // Get all previous streaming platforms from watched entries and watchlist items
-        WatchedViewModel watchedViewModel = new ViewModelProvider(this).get(WatchedViewModel.class);
-        watchedViewModel.getAllWatched().observe(getViewLifecycleOwner(), entries -> {
-            List<String> platforms = new ArrayList<>();
-            // Add common streaming platforms as defaults
-            platforms.add("Netflix");
-            platforms.add("Prime Video");
-            platforms.add("Disney+");
-            platforms.add("Hulu");
-            platforms.add("HBO Max");
-            platforms.add("Paramount+");
-            platforms.add("Apple TV+");
-            platforms.add("Peacock");
-            platforms.add("YouTube");
-            platforms.add("Crunchyroll");
-            
-            for (WatchedEntry entry : entries) {
-                if (entry.streamingPlatform != null && !entry.streamingPlatform.trim().isEmpty()) {
-                    String trimmed = entry.streamingPlatform.trim();
-                    if (!platforms.contains(trimmed)) {
-                        platforms.add(trimmed);
-                    }
-                }
-            }
-            
-            // Also get from watchlist items
-            viewModel.getAllWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
-                for (WatchlistItem item : watchlistItems) {
-                    if (item.streamingPlatform != null && !item.streamingPlatform.trim().isEmpty()) {
-                        String trimmed = item.streamingPlatform.trim();
-                        if (!platforms.contains(trimmed)) {
-                            platforms.add(trimmed);
-                        }
-                    }
-                }
-                
-                // Set up the autocomplete adapter
-                ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
-                    R.layout.autocomplete_item, platforms);
-                binding.editOttPlatform.setAdapter(adapter);
-            });
+        viewModel.getSuggestions(SuggestionField.STREAMING_PLATFORM).observe(getViewLifecycleOwner(), values -> {
+            ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), 
+                R.layout.autocomplete_item, values);
+            binding.editOttPlatform.setAdapter(adapter);
         });
     }
 
@@ -320,24 +280,8 @@ public class EditWatchlistFragment extends Fragment {
 
     private void convertToWatched() {
         if (itemToEdit != null) {
-            // Create a new watched entry from the watchlist item
-            com.entertainment.moviememo.data.entities.WatchedEntry entry = new com.entertainment.moviememo.data.entities.WatchedEntry(
-                itemToEdit.title,
-                new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(new java.util.Date()),
-                "HOME", // Default location
-                "EVENING" // Default time
-            );
-            
-            if (itemToEdit.notes != null) {
-                entry.notes = itemToEdit.notes;
-            }
-            
-            // Insert into watched entries
-            com.entertainment.moviememo.viewmodels.WatchedViewModel watchedViewModel = new androidx.lifecycle.ViewModelProvider(this).get(com.entertainment.moviememo.viewmodels.WatchedViewModel.class);
-            watchedViewModel.insertWatched(entry);
-            
-            // Remove from watchlist
-            viewModel.deleteWatchlist(itemToEdit);
+            // Insert the watched entry and remove the item in one transaction
+            viewModel.moveToWatched(itemToEdit);
             
             Toast.makeText(getContext(), "🎬 Moved to watched movies!", Toast.LENGTH_SHORT).show();
             getParentFragmentManager().popBackStack();
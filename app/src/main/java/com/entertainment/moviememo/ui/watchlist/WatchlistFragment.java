@@ -18,10 +18,10 @@ import com.entertainment.moviememo.databinding.FragmentWatchlistBinding;
 import com.entertainment.moviememo.viewmodels.WatchlistViewModel;
 import com.entertainment.moviememo.ui.adapters.WatchlistAdapter;
 import com.entertainment.moviememo.data.enums.WhereToWatch;
+import com.entertainment.moviememo.data.query.WatchlistQuery;
 import com.entertainment.moviememo.utils.NotificationHelper;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class WatchlistFragment extends Fragment {
 
@@ -29,6 +29,8 @@ public class WatchlistFragment extends Fragment {
     private WatchlistViewModel viewModel;
     private WatchlistAdapter adapter;
     private String currentFilter = "ALL"; // ALL, THEATER, OTT_STREAMING
+    private String currentQuery = "";
+    private CharSequence defaultEmptyText;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -41,6 +43,8 @@ public class WatchlistFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         
+        defaultEmptyText = binding.textEmptyState.getText();
+        
         setupViewModel();
         setupRecyclerView();
         setupSearch();
@@ -86,17 +90,8 @@ public class WatchlistFragment extends Fragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                String query = s.toString().trim();
-                if (query.isEmpty()) {
-                    // When search is cleared, respect the current filter
-                    if (currentFilter.equals("ALL")) {
-                        observeData();
-                    } else {
-                        filterByWhereToWatch(currentFilter);
-                    }
-                } else {
-                    searchWatchlist(query);
-                }
+                currentQuery = s.toString().trim();
+                applyQuery();
             }
 
             @Override
@@ -111,19 +106,19 @@ public class WatchlistFragment extends Fragment {
         binding.buttonFilterAll.setOnClickListener(v -> {
             currentFilter = "ALL";
             updateFilterButtons("ALL");
-            observeData();
+            applyQuery();
         });
         
         binding.buttonFilterTheater.setOnClickListener(v -> {
-            currentFilter = "THEATER";
+            currentFilter = WhereToWatch.THEATER.name();
             updateFilterButtons("THEATER");
-            filterByWhereToWatch(WhereToWatch.THEATER.name());
+            applyQuery();
         });
         
         binding.buttonFilterOtt.setOnClickListener(v -> {
-            currentFilter = "OTT_STREAMING";
+            currentFilter = WhereToWatch.OTT_STREAMING.name();
             updateFilterButtons("OTT_STREAMING");
-            filterByWhereToWatch(WhereToWatch.OTT_STREAMING.name());
+            applyQuery();
         });
     }
     
@@ -147,66 +142,9 @@ public class WatchlistFragment extends Fragment {
         }
     }
     
-    private void filterByWhereToWatch(String whereToWatch) {
-        binding.progressBar.setVisibility(View.VISIBLE);
-        binding.recyclerViewWatchlist.setVisibility(View.GONE);
-        binding.textEmptyState.setVisibility(View.GONE);
-        
-        viewModel.getAllWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
-            binding.progressBar.setVisibility(View.GONE);
-            
-            if (watchlistItems != null) {
-                List<com.entertainment.moviememo.data.entities.WatchlistItem> filteredItems = new ArrayList<>();
-                for (com.entertainment.moviememo.data.entities.WatchlistItem item : watchlistItems) {
-                    if (item.whereToWatch != null && item.whereToWatch.equals(whereToWatch)) {
-                        filteredItems.add(item);
-                    }
-                }
-                
-                if (!filteredItems.isEmpty()) {
-                    adapter.submitList(filteredItems);
-                    binding.textEmptyState.setVisibility(View.GONE);
-                    binding.recyclerViewWatchlist.setVisibility(View.VISIBLE);
-                } else {
-                    adapter.submitList(new ArrayList<>());
-                    String filterName = whereToWatch.equals(WhereToWatch.THEATER.name()) ? "theater" : "OTT/Streaming";
-                    binding.textEmptyState.setText("No movies in watchlist for " + filterName);
-                    binding.textEmptyState.setVisibility(View.VISIBLE);
-                    binding.recyclerViewWatchlist.setVisibility(View.GONE);
-                }
-            }
-        });
-    }
-
-    private void searchWatchlist(String query) {
-        viewModel.getAllWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
-            if (watchlistItems != null) {
-                List<com.entertainment.moviememo.data.entities.WatchlistItem> filteredItems = new ArrayList<>();
-                for (com.entertainment.moviememo.data.entities.WatchlistItem item : watchlistItems) {
-                    // Check if item matches search query
-                    boolean matchesSearch = item.title.toLowerCase().contains(query.toLowerCase()) ||
-                        (item.notes != null && item.notes.toLowerCase().contains(query.toLowerCase()));
-                    
-                    // Check if item matches current filter
-                    boolean matchesFilter = currentFilter.equals("ALL") ||
-                        (item.whereToWatch != null && item.whereToWatch.equals(currentFilter));
-                    
-                    if (matchesSearch && matchesFilter) {
-                        filteredItems.add(item);
-                    }
-                }
-                
-                if (!filteredItems.isEmpty()) {
-                    adapter.submitList(filteredItems);
-                    binding.textEmptyState.setVisibility(View.GONE);
-                    binding.recyclerViewWatchlist.setVisibility(View.VISIBLE);
-                } else {
-                    binding.textEmptyState.setText("No watchlist items found matching \"" + query + "\"");
-                    binding.textEmptyState.setVisibility(View.VISIBLE);
-                    binding.recyclerViewWatchlist.setVisibility(View.GONE);
-                }
-            }
-        });
+    private void applyQuery() {
+        String whereToWatch = currentFilter.equals("ALL") ? null : currentFilter;
+        viewModel.setWatchlistQuery(new WatchlistQuery(whereToWatch, currentQuery));
     }
 
     private void observeData() {
@@ -215,7 +153,8 @@ public class WatchlistFragment extends Fragment {
         binding.recyclerViewWatchlist.setVisibility(View.GONE);
         binding.textEmptyState.setVisibility(View.GONE);
         
-        viewModel.getAllWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
+        // Filter and search are applied in SQLite; this re-emits whenever the query changes
+        viewModel.getWatchlist().observe(getViewLifecycleOwner(), watchlistItems -> {
             binding.progressBar.setVisibility(View.GONE);
             
             if (watchlistItems != null && !watchlistItems.isEmpty()) {
@@ -224,31 +163,27 @@ public class WatchlistFragment extends Fragment {
                 binding.recyclerViewWatchlist.setVisibility(View.VISIBLE);
             } else {
                 adapter.submitList(new ArrayList<>());
+                binding.textEmptyState.setText(getEmptyStateText());
                 binding.textEmptyState.setVisibility(View.VISIBLE);
                 binding.recyclerViewWatchlist.setVisibility(View.GONE);
             }
         });
     }
+    
+    private CharSequence getEmptyStateText() {
+        if (!currentQuery.isEmpty()) {
+            return "No watchlist items found matching \"" + currentQuery + "\"";
+        }
+        if (!currentFilter.equals("ALL")) {
+            String filterName = currentFilter.equals(WhereToWatch.THEATER.name()) ? "theater" : "OTT/Streaming";
+            return "No movies in watchlist for " + filterName;
+        }
+        return defaultEmptyText;
+    }
 
     private void convertToWatched(com.entertainment.moviememo.data.entities.WatchlistItem item) {
-        // Create a new watched entry from the watchlist item
-        com.entertainment.moviememo.data.entities.WatchedEntry entry = new com.entertainment.moviememo.data.entities.WatchedEntry(
-            item.title,
-            new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(new java.util.Date()),
-            "HOME", // Default location
-            "EVENING" // Default time
-        );
-        
-        if (item.notes != null) {
-            entry.notes = item.notes;
-        }
-        
-        // Insert into watched entries
-        com.entertainment.moviememo.viewmodels.WatchedViewModel watchedViewModel = new androidx.lifecycle.ViewModelProvider(this).get(com.entertainment.moviememo.viewmodels.WatchedViewModel.class);
-        watchedViewModel.insertWatched(entry);
-        
-        // Remove from watchlist
-        viewModel.deleteWatchlist(item);
+        // Insert the watched entry and remove the item in one transaction
+        viewModel.moveToWatched(item);
         
         Toast.makeText(getContext(), "Moved to watched movies!", Toast.LENGTH_SHORT).show();
     }
@@ -0,0 +1,277 @@
+package com.entertainment.moviememo.utils;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.entertainment.moviememo.data.entities.WatchedEntry;
+import com.entertainment.moviememo.data.entities.WatchlistItem;
+import com.entertainment.moviememo.data.enums.LocationType;
+import com.entertainment.moviememo.data.enums.TimeOfDay;
+import com.entertainment.moviememo.data.query.ExportQuery;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// What an export holds, described once for the JSON, CSV and binary codecs: per entity, a table of
+// fields in a fixed order, each with its column, CSV label, value type and the schema version that
+// added it. A field added here is exported, imported and carried by every format; bump VERSION
+// with it and add it after the existing fields, since binary records are positional.
+public final class BackupSchema {
+
+    // 3 added watchlist streamingPlatform
+    public static final int VERSION = 3;
+
+    public enum Type {
+        ID,   // the row id; left out of CSV, and ignored by imports that match rows by content
+        TEXT,
+        DICT, // text with few distinct values, which the binary format keeps in a dictionary
+        INT,
+        LONG
+    }
+
+    public interface Setter<E> {
+        void set(E entity, Object value);
+    }
+
+    // Builds an entity from the values of the fields without a setter, in field order
+    public interface Factory<E> {
+        E create(Object[] args);
+    }
+
+    // A row without a value for a required field; imports skip the row and count it
+    public static final class MissingFieldException extends IOException {
+        MissingFieldException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class Field<E> {
+        public final String name;
+        public final String label; // CSV header, null for ID
+        public final Type type;
+        public final int since;
+        public final boolean required;
+        final Setter<E> setter; // null when the factory takes the value
+
+        Field(String name, String label, Type type, int since, boolean required, Setter<E> setter) {
+            this.name = name;
+            this.label = label;
+            this.type = type;
+            this.since = since;
+            this.required = required;
+            this.setter = setter;
+        }
+    }
+
+    public static final class Table<E> {
+        public final String key; // JSON array name
+        public final String sqlTable;
+        final String csvType; // CSV Type column
+        final List<Field<E>> fields;
+        private final String orderBy;
+        private final Factory<E> factory;
+        private final ToLongFunction<E> contentKey;
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final String[] columns;
+        private final int factoryArgs;
+
+        Table(String key, String sqlTable, String csvType, String orderBy, Factory<E> factory,
+              ToLongFunction<E> contentKey, List<Field<E>> fields) {
+            this.key = key;
+            this.sqlTable = sqlTable;
+            this.csvType = csvType;
+            this.orderBy = orderBy;
+            this.factory = factory;
+            this.contentKey = contentKey;
+            this.fields = Collections.unmodifiableList(fields);
+            this.columns = new String[fields.size()];
+            int factoryArgs = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0 && fields.get(i).since < fields.get(i - 1).since) {
+                    throw new IllegalStateException(key + "." + fields.get(i).name + " must come after newer fields");
+                }
+                columns[i] = fields.get(i).name;
+                indexes.put(columns[i], i);
+                if (fields.get(i).setter == null) {
+                    factoryArgs++;
+                }
+            }
+            this.factoryArgs = factoryArgs;
+        }
+
+        public int size() {
+            return fields.size();
+        }
+
+        // Position of the named field, -1 for a name this schema doesn't know
+        public int indexOf(String name) {
+            Integer index = indexes.get(name);
+            return index != null ? index : -1;
+        }
+
+        // How many leading fields a file written with the given schema version has
+        int fieldCount(int version) {
+            int count = 0;
+            while (count < fields.size() && fields.get(count).since <= version) {
+                count++;
+            }
+            return count;
+        }
+
+        // values are in field order; a missing optional field keeps the entity's default
+        E create(Object[] values) throws IOException {
+            Object[] args = new Object[factoryArgs];
+            int arg = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                Field<E> field = fields.get(i);
+                if (values[i] == null && field.required) {
+                    throw new MissingFieldException(key + " row is missing " + field.name);
+                }
+                if (field.setter == null) {
+                    args[arg++] = values[i];
+                }
+            }
+            E entity = factory.create(args);
+            for (int i = 0; i < fields.size(); i++) {
+                Field<E> field = fields.get(i);
+                if (values[i] != null && field.setter != null) {
+                    field.setter.set(entity, values[i]);
+                }
+            }
+            return entity;
+        }
+
+        // The ContentKey the entity was stored or created with
+        long contentKey(E entity) {
+            return contentKey.applyAsLong(entity);
+        }
+
+        // A row of exportQuery() or withContentKeysQuery() as values in field order
+        Object[] read(Cursor cursor) {
+            Object[] values = new Object[fields.size()];
+            for (int i = 0; i < values.length; i++) {
+                if (cursor.isNull(i)) {
+                    continue;
+                }
+                switch (fields.get(i).type) {
+                    case ID:
+                    case LONG:
+                        values[i] = cursor.getLong(i);
+                        break;
+                    case INT:
+                        values[i] = cursor.getInt(i);
+                        break;
+                    default:
+                        values[i] = cursor.getString(i);
+                        break;
+                }
+            }
+            return values;
+        }
+
+        // Columns in field order, for MovieDao.exportCursor
+        public SupportSQLiteQuery exportQuery() {
+            return ExportQuery.all(sqlTable, columns, orderBy);
+        }
+
+        public SupportSQLiteQuery changedQuery(long fromSeq, long toSeq) {
+            return ExportQuery.changed(sqlTable, columns, fromSeq, toSeq);
+        }
+
+        public SupportSQLiteQuery deletedQuery(long fromSeq, long toSeq) {
+            return ExportQuery.deleted(sqlTable, fromSeq, toSeq);
+        }
+
+        public SupportSQLiteQuery contentKeysQuery() {
+            return ExportQuery.contentKeys(sqlTable);
+        }
+
+        // Columns in field order and then contentKey, for the rows with any of the keys
+        public SupportSQLiteQuery withContentKeysQuery(List<Long> keys) {
+            return ExportQuery.withContentKeys(sqlTable, columns, keys);
+        }
+    }
+
+    public static final Table<WatchedEntry> WATCHED = new Table<>(
+            "watchedEntries", "watched_entries", "Watched", "watchedDate DESC, id DESC",
+            args -> new WatchedEntry((String) args[0], (String) args[1],
+                    orDefault((String) args[2], LocationType.HOME.name()),
+                    orDefault((String) args[3], TimeOfDay.MORNING.name())),
+            e -> e.contentKey,
+            Arrays.asList(
+                    new Field<WatchedEntry>("id", null, Type.ID, 1, false, (e, v) -> e.id = (Long) v),
+                    new Field<WatchedEntry>("title", "Title", Type.TEXT, 1, true, null),
+                    new Field<WatchedEntry>("rating", "Rating", Type.INT, 1, false, (e, v) -> e.rating = (Integer) v),
+                    new Field<WatchedEntry>("watchedDate", "Watched Date", Type.TEXT, 1, true, null),
+                    new Field<WatchedEntry>("locationType", "Location Type", Type.DICT, 1, false, null),
+                    new Field<WatchedEntry>("locationNotes", "Location Notes", Type.TEXT, 1, false,
+                            (e, v) -> e.locationNotes = (String) v),
+                    new Field<WatchedEntry>("companions", "Companions", Type.TEXT, 1, false,
+                            (e, v) -> e.companions = (String) v),
+                    new Field<WatchedEntry>("spendCents", "Spend (Cents)", Type.INT, 1, false,
+                            (e, v) -> e.spendCents = (Integer) v),
+                    new Field<WatchedEntry>("durationMin", "Duration (Min)", Type.INT, 1, false,
+                            (e, v) -> e.durationMin = (Integer) v),
+                    new Field<WatchedEntry>("timeOfDay", "Time of Day", Type.DICT, 1, false, null),
+                    new Field<WatchedEntry>("genre", "Genre", Type.DICT, 1, false, (e, v) -> e.genre = (String) v),
+                    new Field<WatchedEntry>("notes", "Notes", Type.TEXT, 1, false, (e, v) -> e.notes = (String) v),
+                    new Field<WatchedEntry>("posterUri", "Poster URI", Type.TEXT, 1, false,
+                            (e, v) -> e.posterUri = (String) v),
+                    new Field<WatchedEntry>("language", "Language", Type.DICT, 1, false,
+                            (e, v) -> e.language = (String) v),
+                    new Field<WatchedEntry>("theaterName", "Theater Name", Type.TEXT, 1, false,
+                            (e, v) -> e.theaterName = (String) v),
+                    new Field<WatchedEntry>("city", "City", Type.DICT, 1, false, (e, v) -> e.city = (String) v),
+                    new Field<WatchedEntry>("streamingPlatform", "Streaming Platform", Type.DICT, 1, false,
+                            (e, v) -> e.streamingPlatform = (String) v)));
+
+    public static final Table<WatchlistItem> WATCHLIST = new Table<>(
+            "watchlistItems", "watchlist_items", "Watchlist", "createdAt DESC",
+            args -> new WatchlistItem((String) args[0]),
+            e -> e.contentKey,
+            Arrays.asList(
+                    new Field<WatchlistItem>("id", null, Type.ID, 1, false, (e, v) -> e.id = (Long) v),
+                    new Field<WatchlistItem>("title", "Title", Type.TEXT, 1, true, null),
+                    new Field<WatchlistItem>("notes", "Notes", Type.TEXT, 1, false, (e, v) -> e.notes = (String) v),
+                    new Field<WatchlistItem>("priority", "Priority", Type.INT, 1, false,
+                            (e, v) -> e.priority = (Integer) v),
+                    new Field<WatchlistItem>("createdAt", "Created At", Type.LONG, 1, false,
+                            (e, v) -> e.createdAt = (Long) v),
+                    new Field<WatchlistItem>("targetDate", "Target Date", Type.LONG, 1, false,
+                            (e, v) -> e.targetDate = (Long) v),
+                    new Field<WatchlistItem>("language", "Language", Type.DICT, 1, false,
+                            (e, v) -> e.language = (String) v),
+                    new Field<WatchlistItem>("whereToWatch", "Where To Watch", Type.DICT, 1, false,
+                            (e, v) -> e.whereToWatch = (String) v),
+                    new Field<WatchlistItem>("releaseDate", "Release Date", Type.LONG, 1, false,
+                            (e, v) -> e.releaseDate = (Long) v),
+                    new Field<WatchlistItem>("streamingPlatform", "Streaming Platform", Type.DICT, 3, false,
+                            (e, v) -> e.streamingPlatform = (String) v)));
+
+    // In export order
+    public static final List<Table<?>> TABLES = Collections.unmodifiableList(Arrays.<Table<?>>asList(WATCHED, WATCHLIST));
+
+    private BackupSchema() {}
+
+    // The table a JSON array holds, or null for a key this schema doesn't know
+    static Table<?> byKey(String key) {
+        for (Table<?> table : TABLES) {
+            if (table.key.equals(key)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    // Older exports and hand-edited CSV leave Location Type and Time of Day out or blank; the
+    // forms have always started at home and in the morning
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.trim().isEmpty() ? fallback : value;
+    }
+}
@@ -0,0 +1,349 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary backup (.mmbk). After a header ("MMBK", BackupSchema version, export time, and
+// since version 2 a full/delta flag and the change-log range it covers) come tagged records, one
+// per row, ending with END. A full backup holds every row as of seq; a delta holds the rows
+// changed in (baseSeq, seq] and the ids deleted in that range.
+// A row record holds its table's BackupSchema fields in order, encoded by type:
+//   ID:          unsigned varint
+//   INT, LONG:   varint, zigzag + 1 with 0 for null
+//   TEXT:        varint byte length + 1 (0 for null), then UTF-8 bytes
+//   DICT:        low-cardinality text as a varint into a dictionary built while writing:
+//                0 = null, 1 = a new entry follows as TEXT, n >= 2 = entry n - 2
+// A file from an older version has only the fields that version had; the rest read as null.
+public final class BinaryBackup {
+
+    static final byte[] MAGIC = {'M', 'M', 'B', 'K'};
+    static final int VERSION = BackupSchema.VERSION;
+
+    static final int END = 0;
+    // Record tags per table, in BackupSchema.TABLES order
+    private static final int[] ROW_TAGS = {1, 2};
+    private static final int[] DELETED_TAGS = {3, 4};
+
+    private static final int FLAG_DELTA = 1;
+    // Records read between two progress updates
+    private static final int PROGRESS_RECORDS = 256;
+
+    private BinaryBackup() {}
+
+    // Encodes for DataPipeline. The sections are BackupSchema.TABLES in order, each followed in a
+    // delta by a section of the ids deleted from that table.
+    static final class Writer implements DataPipeline.Encoder {
+        private final long exportedAt;
+        private final boolean delta;
+        private final long baseSeq;
+        private final long seq;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private OutputStream out;
+        private BackupSchema.Table<?> table;
+        private int tag;
+        private boolean deleted;
+
+        // A full backup when delta is false, in which case baseSeq is ignored
+        Writer(long exportedAt, boolean delta, long baseSeq, long seq) {
+            this.exportedAt = exportedAt;
+            this.delta = delta;
+            this.baseSeq = baseSeq;
+            this.seq = seq;
+        }
+
+        @Override
+        public void start(OutputStream out) throws IOException {
+            this.out = out;
+            out.write(MAGIC);
+            writeVarint(VERSION);
+            writeVarint(exportedAt);
+            writeVarint(delta ? FLAG_DELTA : 0);
+            writeVarint(delta ? baseSeq : 0);
+            writeVarint(seq);
+        }
+
+        @Override
+        public void section(int index, String[] columns) {
+            int tableIndex = delta ? index / 2 : index;
+            table = BackupSchema.TABLES.get(tableIndex);
+            deleted = delta && index % 2 == 1;
+            tag = deleted ? DELETED_TAGS[tableIndex] : ROW_TAGS[tableIndex];
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            out.write(tag);
+            if (deleted) {
+                writeVarint(((Number) values[0]).longValue());
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                switch (table.fields.get(i).type) {
+                    case ID:
+                        writeVarint(((Number) values[i]).longValue());
+                        break;
+                    case INT:
+                    case LONG:
+                        writeNumber((Number) values[i]);
+                        break;
+                    case TEXT:
+                        writeText((String) values[i]);
+                        break;
+                    default:
+                        writeDict((String) values[i]);
+                        break;
+                }
+            }
+        }
+
+        // Marks the backup complete; a file without the END record is rejected as truncated
+        @Override
+        public void finish() throws IOException {
+            out.write(END);
+            out.flush();
+        }
+
+        private void writeNumber(Number value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                long number = value.longValue();
+                writeVarint(((number << 1) ^ (number >> 63)) + 1);
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            out.write(bytes);
+        }
+
+        private void writeDict(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarint(index + 2L);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            writeVarint(1);
+            writeText(value);
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    // Decodes straight from a read-only memory map of the file
+    public static class Reader implements Closeable {
+        private final RandomAccessFile file;
+        private final MappedByteBuffer buffer;
+        private final List<String> dictionary = new ArrayList<>();
+        private final int version;
+        private final long exportedAt;
+        private final boolean delta;
+        private final long baseSeq;
+        private final long seq;
+        private byte[] scratch = new byte[256];
+
+        public Reader(File backupFile) throws IOException {
+            this.file = new RandomAccessFile(backupFile, "r");
+            try {
+                FileChannel channel = file.getChannel();
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Backup is too large to map");
+                }
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (byte b : MAGIC) {
+                    if (!buffer.hasRemaining() || buffer.get() != b) {
+                        throw new IOException("Not a MovieMemo backup");
+                    }
+                }
+                this.version = (int) readVarint();
+                if (version < 1 || version > VERSION) {
+                    throw new IOException("Unsupported backup version " + version);
+                }
+                this.exportedAt = readVarint();
+                // Version 1 backups are always full and predate the change log
+                this.delta = version >= 2 && (readVarint() & FLAG_DELTA) != 0;
+                this.baseSeq = version >= 2 ? readVarint() : 0;
+                this.seq = version >= 2 ? readVarint() : 0;
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public long getExportedAt() {
+            return exportedAt;
+        }
+
+        public long getBaseSeq() {
+            return baseSeq;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public boolean isDelta() {
+            return delta;
+        }
+
+        // Every record up to END into the sink; the job gets the file's bytes as they are read
+        void read(RowSink sink, TransferJob job) throws IOException {
+            List<BackupSchema.Table<?>> tables = BackupSchema.TABLES;
+            int[] fieldCounts = new int[tables.size()];
+            Object[][] values = new Object[tables.size()][];
+            for (int t = 0; t < tables.size(); t++) {
+                fieldCounts[t] = tables.get(t).fieldCount(version);
+                values[t] = new Object[tables.get(t).size()];
+            }
+
+            int reported = buffer.position();
+            int records = 0;
+            int tag;
+            while ((tag = readByte()) != END) {
+                int t = indexOf(ROW_TAGS, tag);
+                if (t >= 0) {
+                    BackupSchema.Table<?> table = tables.get(t);
+                    for (int i = 0; i < fieldCounts[t]; i++) {
+                        values[t][i] = readField(table.fields.get(i).type);
+                    }
+                    sink.row(table, values[t]);
+                } else if ((t = indexOf(DELETED_TAGS, tag)) >= 0) {
+                    sink.deleted(tables.get(t), readVarint());
+                } else {
+                    throw new IOException("Corrupt backup: unknown record " + tag);
+                }
+                if (++records % PROGRESS_RECORDS == 0) {
+                    job.addBytes(buffer.position() - reported);
+                    reported = buffer.position();
+                }
+            }
+            job.addBytes(buffer.position() - reported);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The mapping itself is released when the buffer is garbage collected
+            file.close();
+        }
+
+        private Object readField(BackupSchema.Type type) throws IOException {
+            switch (type) {
+                case ID:
+                    return readVarint();
+                case INT:
+                    Long value = readNumber();
+                    return value != null ? value.intValue() : null;
+                case LONG:
+                    return readNumber();
+                case TEXT:
+                    return readText();
+                default:
+                    return readDict();
+            }
+        }
+
+        private int readByte() throws IOException {
+            try {
+                return buffer.get() & 0xFF;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Backup is truncated", e);
+            }
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt backup: varint too long");
+        }
+
+        private Long readNumber() throws IOException {
+            long encoded = readVarint();
+            if (encoded == 0) {
+                return null;
+            }
+            long zigzag = encoded - 1;
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private String readText() throws IOException {
+            long length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new IOException("Backup is truncated");
+            }
+            int size = (int) length;
+            if (scratch.length < size) {
+                scratch = new byte[Math.max(size, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, size);
+            return new String(scratch, 0, size, StandardCharsets.UTF_8);
+        }
+
+        private String readDict() throws IOException {
+            long ref = readVarint();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref == 1) {
+                String value = readText();
+                if (value == null) {
+                    throw new IOException("Corrupt backup: null dictionary entry");
+                }
+                dictionary.add(value);
+                return value;
+            }
+            if (ref - 2 >= dictionary.size()) {
+                throw new IOException("Corrupt backup: unknown dictionary entry " + (ref - 2));
+            }
+            return dictionary.get((int) (ref - 2));
+        }
+
+        private static int indexOf(int[] tags, int tag) {
+            for (int i = 0; i < tags.length; i++) {
+                if (tags[i] == tag) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
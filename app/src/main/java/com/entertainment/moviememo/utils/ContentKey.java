@@ -0,0 +1,41 @@
+package com.entertainment.moviememo.utils;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// 64-bit keys that identify a row by what it holds rather than by its id, so an import can tell
+// a movie the library already has from a new one. Case, Unicode form and runs of whitespace
+// don't change a key. Keys are stored, so they use FarmHash's fingerprint, which never changes
+// between releases.
+public final class ContentKey {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Between parts, so ("ab", "c") and ("a", "bc") differ
+    private static final char SEPARATOR = '\u001f';
+
+    private ContentKey() {}
+
+    // Never 0, which is what rows had before their key was computed
+    public static long of(String... parts) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                text.append(SEPARATOR);
+            }
+            if (parts[i] != null) {
+                text.append(normalize(parts[i]));
+            }
+        }
+        long key = Hashing.farmHashFingerprint64().hashString(text, StandardCharsets.UTF_8).asLong();
+        return key != 0 ? key : 1;
+    }
+
+    static String normalize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+        return WHITESPACE.matcher(folded).replaceAll(" ");
+    }
+}
@@ -0,0 +1,145 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// CSV export: rows of every BackupSchema table under one header, "Type" and then the union of the
+// tables' field labels in table order. A row leaves the columns of other tables empty. Ids are
+// not exported; an import matches rows by content key. Columns are matched by header label on import.
+final class CsvCodec {
+
+    static final List<String> HEADER;
+
+    static {
+        List<String> header = new ArrayList<>();
+        header.add("Type");
+        for (BackupSchema.Table<?> table : BackupSchema.TABLES) {
+            for (BackupSchema.Field<?> field : table.fields) {
+                if (field.label != null && !header.contains(field.label)) {
+                    header.add(field.label);
+                }
+            }
+        }
+        HEADER = Collections.unmodifiableList(header);
+    }
+
+    private CsvCodec() {}
+
+    // Sections are BackupSchema.TABLES in order
+    static final class Encoder implements DataPipeline.Encoder {
+        private CsvWriter csv;
+        private String type;
+        // Per header column after Type, the field index to write, or -1 for an empty column
+        private int[] fieldIndexes;
+
+        @Override
+        public void start(OutputStream out) throws IOException {
+            csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            for (String label : HEADER) {
+                csv.field(label);
+            }
+            csv.endRecord();
+        }
+
+        @Override
+        public void section(int index, String[] columns) {
+            BackupSchema.Table<?> table = BackupSchema.TABLES.get(index);
+            type = table.csvType;
+            fieldIndexes = new int[HEADER.size() - 1];
+            Arrays.fill(fieldIndexes, -1);
+            for (int i = 0; i < table.size(); i++) {
+                String label = table.fields.get(i).label;
+                if (label != null) {
+                    fieldIndexes[HEADER.indexOf(label) - 1] = i;
+                }
+            }
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            csv.field(type);
+            for (int fieldIndex : fieldIndexes) {
+                Object value = fieldIndex >= 0 ? values[fieldIndex] : null;
+                if (value instanceof Long) {
+                    csv.field((Long) value);
+                } else {
+                    csv.field(value != null ? value.toString() : null);
+                }
+            }
+            csv.endRecord();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csv.flush();
+        }
+    }
+
+    // Reads one record at a time into the sink; rows of an unknown type are skipped
+    static void read(InputStream in, RowSink sink) throws IOException {
+        try (CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+            if (!csv.nextRecord()) {
+                return;
+            }
+            List<String> header = new ArrayList<>();
+            for (int i = 0; i < csv.getFieldCount(); i++) {
+                header.add(csv.getString(i));
+            }
+
+            // Per table, the column each field is read from, or -1 when the file has none
+            List<BackupSchema.Table<?>> tables = BackupSchema.TABLES;
+            int[][] columns = new int[tables.size()][];
+            Object[][] values = new Object[tables.size()][];
+            for (int t = 0; t < tables.size(); t++) {
+                BackupSchema.Table<?> table = tables.get(t);
+                columns[t] = new int[table.size()];
+                values[t] = new Object[table.size()];
+                for (int i = 0; i < table.size(); i++) {
+                    String label = table.fields.get(i).label;
+                    columns[t][i] = label != null ? header.indexOf(label) : -1;
+                }
+            }
+
+            while (csv.nextRecord()) {
+                if (csv.isBlankRecord()) continue;
+                for (int t = 0; t < tables.size(); t++) {
+                    BackupSchema.Table<?> table = tables.get(t);
+                    if (!csv.fieldEquals(0, table.csvType)) {
+                        continue;
+                    }
+                    for (int i = 0; i < table.size(); i++) {
+                        int column = columns[t][i];
+                        if (column < 0) {
+                            values[t][i] = null;
+                            continue;
+                        }
+                        switch (table.fields.get(i).type) {
+                            case INT:
+                                values[t][i] = csv.getInt(column);
+                                break;
+                            case ID:
+                            case LONG:
+                                values[t][i] = csv.getLong(column);
+                                break;
+                            default:
+                                values[t][i] = csv.getString(column);
+                                break;
+                        }
+                    }
+                    sink.row(table, values[t]);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// Streaming RFC 4180 reader. Fields are tokenized out of a reusable char buffer into one reusable
+// record buffer, so reading a record allocates nothing; a String is only created when a field is
+// asked for as one. Quoted fields may contain commas, doubled quotes and line breaks, and records
+// may end in LF or CRLF.
+public class CsvReader implements Closeable {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    // Unescaped characters of the current record and where each field starts and ends in them
+    private char[] record = new char[256];
+    private int recordLength = 0;
+    private int[] fieldStarts = new int[32];
+    private int[] fieldEnds = new int[32];
+    private int fieldCount = 0;
+
+    private boolean started = false;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Reads the next record; false at end of input
+    public boolean nextRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+
+        if (!started) {
+            started = true;
+            // Spreadsheet apps often start UTF-8 files with a byte order mark
+            if (fill() && buffer[position] == '\uFEFF') {
+                position++;
+            }
+        }
+        if (!fill()) {
+            return false;
+        }
+
+        int fieldStart = 0;
+        boolean quoted = false;
+        while (true) {
+            if (!fill()) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                endField(fieldStart);
+                return true;
+            }
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        position++;
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                endField(fieldStart);
+                fieldStart = recordLength;
+            } else if (c == '\n') {
+                endField(fieldStart);
+                return true;
+            } else if (c == '\r') {
+                if (fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                endField(fieldStart);
+                return true;
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // True for a blank record, which a trailing line break or an empty line produces
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && fieldEnds[0] == fieldStarts[0];
+    }
+
+    public boolean isEmpty(int field) {
+        return field >= fieldCount || fieldEnds[field] == fieldStarts[field];
+    }
+
+    public boolean fieldEquals(int field, String value) {
+        if (field >= fieldCount || fieldEnds[field] - fieldStarts[field] != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (record[fieldStarts[field] + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The field's text, or null when it is empty or missing
+    public String getString(int field) {
+        if (isEmpty(field)) {
+            return null;
+        }
+        return new String(record, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    public Integer getInt(int field) {
+        Long value = getLong(field);
+        if (value == null) {
+            return null;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of range for an int: " + value);
+        }
+        return value.intValue();
+    }
+
+    // Parsed straight from the record buffer; null when the field is empty or missing
+    public Long getLong(int field) {
+        if (isEmpty(field)) {
+            return null;
+        }
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = record[i] == '-';
+        if (negative || record[i] == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Not a number: " + getString(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("Not a number: " + getString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Makes sure at least one unread char is buffered; false at end of input
+    private boolean fill() throws IOException {
+        while (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit < 0) {
+                limit = 0;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            char[] grown = new char[record.length * 2];
+            System.arraycopy(record, 0, grown, 0, recordLength);
+            record = grown;
+        }
+        record[recordLength++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = recordLength;
+        fieldCount++;
+    }
+}
@@ -0,0 +1,83 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Streaming RFC 4180 writer. Fields are quoted only when they contain a comma, quote or line
+// break, and null is written as an empty field. Records end in LF like earlier exports.
+public class CsvWriter implements Closeable {
+
+    private final Writer writer;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return this;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+        return this;
+    }
+
+    public CsvWriter field(Long value) throws IOException {
+        separate();
+        if (value != null) {
+            writer.write(Long.toString(value));
+        }
+        return this;
+    }
+
+    public CsvWriter field(Integer value) throws IOException {
+        return field(value != null ? Long.valueOf(value) : null);
+    }
+
+    public void endRecord() throws IOException {
+        writer.write('\n');
+        firstField = true;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void separate() throws IOException {
+        if (!firstField) {
+            writer.write(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
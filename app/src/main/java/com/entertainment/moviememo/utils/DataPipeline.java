@@ -0,0 +1,502 @@
+package com.entertainment.moviememo.utils;
+
+import android.database.Cursor;
+import android.os.Process;
+import android.util.Log;
+
+import com.google.common.util.concurrent.Futures;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Export as a chain of stages with bounded queues between them: the calling thread copies cursor
+// rows into batches, and stage threads encode them to bytes, gzip the bytes when asked, and write
+// them to a FileChannel. The stages overlap, so an export takes about as long as its slowest
+// stage, while no more than QUEUE_CAPACITY batches or chunks ever wait between two stages.
+// One instance runs one export; its TransferJob gets the rows and bytes as they pass, each stage's
+// working time (excluding time blocked on a queue) and cancellation checks once per batch.
+class DataPipeline {
+    private static final String TAG = "DataPipeline";
+
+    private static final int BATCH_ROWS = 256;
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 4;
+    // How often a blocked stage checks whether another stage failed
+    private static final long POLL_MS = 50;
+
+    // One thread per export stage (encode, compress, write); an import's read-ahead needs one.
+    // Idle threads exit, and a stage that finds all of them busy fails its transfer rather than
+    // waiting behind stages that may in turn be waiting on it.
+    private static final int STAGE_THREADS = 3;
+    private static final long STAGE_KEEP_ALIVE_SECONDS = 30;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger(1);
+    private static final ExecutorService STAGES = new ThreadPoolExecutor(0, STAGE_THREADS,
+            STAGE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "moviememo-pipeline-" + THREAD_COUNT.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Time the current thread has spent blocked on a pipeline queue
+    private static final ThreadLocal<long[]> BLOCKED_NANOS = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    private static final Batch END = new Batch(-1, null, null, 0);
+    private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+    // Turns rows into bytes; only ever called from the encode stage's thread
+    interface Encoder {
+        void start(OutputStream out) throws IOException;
+
+        // Called before each section's rows, also for a section without rows
+        void section(int index, String[] columns) throws IOException;
+
+        // Values in column order: null, Long, Double, String or byte[]
+        void row(Object[] values) throws IOException;
+
+        // Writes whatever is left and flushes, without closing out
+        void finish() throws IOException;
+    }
+
+    private final Encoder encoder;
+    private final boolean compress;
+    private final TransferJob job;
+    private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<ByteBuffer> encoded = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<ByteBuffer> compressed;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    DataPipeline(Encoder encoder, boolean compress, TransferJob job) {
+        this.encoder = encoder;
+        this.compress = compress;
+        this.job = job;
+        this.compressed = compress ? new ArrayBlockingQueue<>(QUEUE_CAPACITY) : encoded;
+    }
+
+    // Exports each cursor as one section, in order, and closes them. A failed export leaves no file.
+    void run(File file, Cursor... cursors) throws IOException {
+        List<Future<?>> stages = new ArrayList<>();
+        stages.add(start("encode", this::encode));
+        if (compress) {
+            stages.add(start("compress", this::compress));
+        }
+        stages.add(start("write", () -> write(file)));
+
+        try {
+            timed("read", () -> read(cursors));
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+
+        for (Future<?> stage : stages) {
+            try {
+                stage.get();
+            } catch (InterruptedException e) {
+                // The stages see the failure and stop on their own
+                fail(e);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Couldn't delete partial export " + file);
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw new IOException(error);
+        }
+    }
+
+    // Import counterpart: a stage reads the file through a FileChannel, gunzipping it when it starts
+    // with the gzip magic, ahead of the caller parsing the returned stream. Closing the stream stops
+    // the stage. The job gets the file's bytes as they are read and the stage's time as "read".
+    static InputStream openForImport(File file, TransferJob job) throws IOException {
+        if (!file.isFile()) {
+            throw new IOException("File not found: " + file);
+        }
+        job.setTotalBytes(file.length());
+        ImportStream stream = new ImportStream();
+        try {
+            STAGES.execute(() -> {
+                try {
+                    timed(job, "read", () -> stream.readAhead(file, job));
+                } catch (Throwable t) {
+                    stream.failure.compareAndSet(null, t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Another transfer is still running", e);
+        }
+        return stream;
+    }
+
+    // Time the calling thread has spent blocked on pipeline queues so far, including reads from an
+    // import stream that had to wait for the read-ahead stage
+    static long blockedNanos() {
+        return BLOCKED_NANOS.get()[0];
+    }
+
+    // A stage that can't get a thread fails the pipeline, which stops the stages already started
+    private Future<?> start(String phase, Stage stage) {
+        try {
+            return STAGES.submit(() -> {
+                try {
+                    timed(phase, stage);
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fail(new IOException("Another transfer is still running", e));
+            return Futures.immediateFuture(null);
+        }
+    }
+
+    private void timed(String phase, Stage stage) throws IOException {
+        timed(job, phase, stage);
+    }
+
+    // Runs the stage and adds its working time, not counting time blocked on a queue, to the phase
+    private static void timed(TransferJob job, String phase, Stage stage) throws IOException {
+        long blocked = blockedNanos();
+        long start = System.nanoTime();
+        try {
+            stage.run();
+        } finally {
+            job.addPhaseTime(phase, System.nanoTime() - start - (blockedNanos() - blocked));
+        }
+    }
+
+    private void fail(Throwable t) {
+        // Only the first failure counts; the rest are stages stopping because of it
+        failure.compareAndSet(null, t);
+    }
+
+    // Stage 1, on the calling thread: cursor rows copied into batches. The last batch of a section
+    // goes out even when empty, so the encoder hears about every section.
+    private void read(Cursor[] cursors) throws IOException {
+        for (int section = 0; section < cursors.length; section++) {
+            Cursor cursor = cursors[section];
+            String[] columns = cursor.getColumnNames();
+            Object[][] rows = new Object[BATCH_ROWS][];
+            int count = 0;
+            while (cursor.moveToNext()) {
+                Object[] values = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    switch (cursor.getType(i)) {
+                        case Cursor.FIELD_TYPE_NULL:
+                            break;
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            values[i] = cursor.getLong(i);
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            values[i] = cursor.getDouble(i);
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            values[i] = cursor.getBlob(i);
+                            break;
+                        default:
+                            values[i] = cursor.getString(i);
+                            break;
+                    }
+                }
+                rows[count++] = values;
+                if (count == BATCH_ROWS) {
+                    job.throwIfCancelled();
+                    put(batches, new Batch(section, columns, rows, count), failure);
+                    job.addRows(count);
+                    rows = new Object[BATCH_ROWS][];
+                    count = 0;
+                }
+            }
+            job.throwIfCancelled();
+            put(batches, new Batch(section, columns, rows, count), failure);
+            job.addRows(count);
+        }
+        put(batches, END, failure);
+    }
+
+    // Stage 2: batches encoded into byte chunks
+    private void encode() throws IOException {
+        try (ChunkOutputStream out = new ChunkOutputStream(encoded, failure)) {
+            encoder.start(out);
+            int section = -1;
+            for (Batch batch = take(batches, failure); batch != END; batch = take(batches, failure)) {
+                if (batch.section != section) {
+                    section = batch.section;
+                    encoder.section(section, batch.columns);
+                }
+                for (int i = 0; i < batch.count; i++) {
+                    encoder.row(batch.rows[i]);
+                }
+            }
+            encoder.finish();
+        }
+    }
+
+    // Stage 3, only when compressing: chunks gzipped into new chunks
+    private void compress() throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(new ChunkOutputStream(compressed, failure), CHUNK_BYTES)) {
+            for (ByteBuffer chunk = take(encoded, failure); chunk != EOF; chunk = take(encoded, failure)) {
+                gzip.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            }
+        }
+    }
+
+    // Last stage: chunks written to the file
+    private void write(File file) throws IOException {
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            for (ByteBuffer chunk = take(compressed, failure); chunk != EOF; chunk = take(compressed, failure)) {
+                int length = chunk.remaining();
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                job.addBytes(length);
+            }
+        }
+    }
+
+    // Blocking queue operations that give up once any stage has failed, so no stage waits forever
+    // on a neighbour that is gone
+    private static <T> void put(BlockingQueue<T> queue, T item, AtomicReference<Throwable> failure) throws IOException {
+        checkFailure(failure);
+        if (queue.offer(item)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            do {
+                checkFailure(failure);
+            } while (!queue.offer(item, POLL_MS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            BLOCKED_NANOS.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, AtomicReference<Throwable> failure) throws IOException {
+        checkFailure(failure);
+        T item = queue.poll();
+        if (item != null) {
+            return item;
+        }
+        long start = System.nanoTime();
+        try {
+            do {
+                checkFailure(failure);
+                item = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } while (item == null);
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            BLOCKED_NANOS.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    private static void checkFailure(AtomicReference<Throwable> failure) throws IOException {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IOException("Pipeline stopped", error);
+        }
+    }
+
+    private interface Stage {
+        void run() throws IOException;
+    }
+
+    private static final class Batch {
+        final int section;
+        final String[] columns;
+        final Object[][] rows;
+        final int count;
+
+        Batch(int section, String[] columns, Object[][] rows, int count) {
+            this.section = section;
+            this.columns = columns;
+            this.rows = rows;
+            this.count = count;
+        }
+    }
+
+    // Collects bytes into full chunks for the next stage; closing hands over the rest and EOF
+    private static final class ChunkOutputStream extends OutputStream {
+        private final BlockingQueue<ByteBuffer> queue;
+        private final AtomicReference<Throwable> failure;
+        private byte[] chunk = new byte[CHUNK_BYTES];
+        private int length = 0;
+        private boolean closed = false;
+
+        ChunkOutputStream(BlockingQueue<ByteBuffer> queue, AtomicReference<Throwable> failure) {
+            this.queue = queue;
+            this.failure = failure;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == chunk.length) {
+                handOver();
+            }
+            chunk[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (length == chunk.length) {
+                    handOver();
+                }
+                int n = Math.min(len, chunk.length - length);
+                System.arraycopy(b, off, chunk, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        // Flushing only keeps chunks full; the bytes move on when a chunk fills or on close
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (length > 0) {
+                handOver();
+            }
+            put(queue, EOF, failure);
+        }
+
+        private void handOver() throws IOException {
+            put(queue, ByteBuffer.wrap(chunk, 0, length), failure);
+            chunk = new byte[CHUNK_BYTES];
+            length = 0;
+        }
+    }
+
+    private static final class ImportStream extends InputStream {
+        private final BlockingQueue<ByteBuffer> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private ByteBuffer current = ByteBuffer.allocate(0);
+
+        void readAhead(File file, TransferJob job) throws IOException {
+            try (FileChannel channel = new FileInputStream(file).getChannel()) {
+                long position = 0;
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), CHUNK_BYTES);
+                in.mark(2);
+                boolean gzipped = in.read() == 0x1f && in.read() == 0x8b;
+                in.reset();
+                if (gzipped) {
+                    in = new GZIPInputStream(in, CHUNK_BYTES);
+                }
+                while (true) {
+                    byte[] chunk = new byte[CHUNK_BYTES];
+                    int length = 0;
+                    int n;
+                    while (length < chunk.length && (n = in.read(chunk, length, chunk.length - length)) != -1) {
+                        length += n;
+                    }
+                    if (length > 0) {
+                        put(chunks, ByteBuffer.wrap(chunk, 0, length), failure);
+                    }
+                    // Bytes of the file itself, so progress stays accurate for gzipped files
+                    job.addBytes(channel.position() - position);
+                    position = channel.position();
+                    if (length < chunk.length) {
+                        put(chunks, EOF, failure);
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // Stops the read-ahead stage if it is still going
+            failure.compareAndSet(null, new IOException("Import stream closed"));
+        }
+
+        private boolean fill() throws IOException {
+            while (!current.hasRemaining()) {
+                if (current == EOF) {
+                    return false;
+                }
+                current = take(chunks, failure);
+            }
+            return true;
+        }
+    }
+}
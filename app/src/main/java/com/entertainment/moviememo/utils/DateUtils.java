@@ -71,4 +71,38 @@ public class DateUtils {
         return today.get(Calendar.YEAR) == targetDate.get(Calendar.YEAR) &&
                today.get(Calendar.MONTH) == targetDate.get(Calendar.MONTH);
     }
+    
+    // Days since 1970-01-01 for an ISO yyyy-MM-dd date, independent of time zone.
+    // Throws IllegalArgumentException if the string is not an ISO date.
+    public static long toEpochDay(String isoDate) {
+        if (isoDate == null || isoDate.length() < 10 || isoDate.charAt(4) != '-' || isoDate.charAt(7) != '-') {
+            throw new IllegalArgumentException("Not an ISO date: " + isoDate);
+        }
+        int year;
+        int month;
+        int day;
+        try {
+            year = Integer.parseInt(isoDate.substring(0, 4));
+            month = Integer.parseInt(isoDate.substring(5, 7));
+            day = Integer.parseInt(isoDate.substring(8, 10));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an ISO date: " + isoDate, e);
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            throw new IllegalArgumentException("Not an ISO date: " + isoDate);
+        }
+        
+        // Civil-from-days in reverse, using a year that starts in March so leap days fall last
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+    
+    // 0 = Sunday ... 6 = Saturday, matching SQLite's strftime('%w')
+    public static int dayOfWeekFromEpochDay(long epochDay) {
+        return (int) Math.floorMod(epochDay + 4, 7L); // 1970-01-01 was a Thursday
+    }
 }
@@ -1,32 +1,54 @@
 package com.entertainment.moviememo.utils;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.os.Environment;
 import android.util.Log;
 
+import com.entertainment.moviememo.data.dao.MovieDao;
 import com.entertainment.moviememo.data.database.AppDatabase;
+import com.entertainment.moviememo.data.database.DatabaseSnapshot;
+import com.entertainment.moviememo.data.database.ShadowDatabase;
+import com.entertainment.moviememo.data.entities.ExportCheckpoint;
+import com.entertainment.moviememo.data.enums.DuplicatePolicy;
 import com.entertainment.moviememo.data.entities.WatchedEntry;
 import com.entertainment.moviememo.data.entities.WatchlistItem;
+import com.entertainment.moviememo.data.repository.MovieRepository;
+import com.google.common.base.Throwables;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
+// Exports and imports in every format, all driven by BackupSchema: exports stream cursors through
+// a DataPipeline with the format's encoder, imports decode into an ImportBatch through RowSink.
 public class ExportImportHelper {
     private static final String TAG = "ExportImportHelper";
     
+    // Rows inserted per transaction when importing
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    // Sizing of the content-key filters duplicate checks start from
+    private static final int MIN_FILTER_KEYS = 1024;
+    private static final double FILTER_FALSE_POSITIVES = 0.01;
+    
     public static class ExportResult {
         public final boolean success;
         public final String filePath;
@@ -41,361 +63,764 @@ public class ExportImportHelper {
     
     public static class ImportResult {
         public final boolean success;
-        public final int watchedCount;
+        public final int watchedCount; // Rows added
         public final int watchlistCount;
+        public final int duplicateCount; // Rows matching one already there, handled by the DuplicatePolicy
+        public final int skippedCount; // Rows without a title or watched date, left out
         public final String errorMessage;
         
         public ImportResult(boolean success, int watchedCount, int watchlistCount, String errorMessage) {
+            this(success, watchedCount, watchlistCount, 0, 0, errorMessage);
+        }
+        
+        public ImportResult(boolean success, int watchedCount, int watchlistCount, int duplicateCount,
+                            int skippedCount, String errorMessage) {
             this.success = success;
             this.watchedCount = watchedCount;
             this.watchlistCount = watchlistCount;
+            this.duplicateCount = duplicateCount;
+            this.skippedCount = skippedCount;
             this.errorMessage = errorMessage;
         }
     }
     
-    // Export to JSON
+    // Export to plain JSON through the staged pipeline, readable by older versions and other tools
     public static ExportResult exportToJson(Context context) {
+        return exportToJson(context, false, new TransferJob());
+    }
+    
+    public static ExportResult exportToJson(Context context, TransferJob job) {
+        return exportToJson(context, false, job);
+    }
+    
+    // compress writes a .json.gz instead; importFromJson reads plain and gzipped files
+    public static ExportResult exportToJson(Context context, boolean compress, TransferJob job) {
         try {
-            List<WatchedEntry> watchedEntries = AppDatabase.getDatabase(context)
-                    .movieDao().getAllWatchedSync();
-            List<WatchlistItem> watchlistItems = AppDatabase.getDatabase(context)
-                    .movieDao().getAllWatchlistSync();
-            
-            JSONObject exportData = new JSONObject();
-            exportData.put("exportDate", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-                    .format(new Date()));
-            exportData.put("version", "1.0");
+            MovieDao movieDao = AppDatabase.getDatabase(context).movieDao();
+            job.setTotalRows(movieDao.countWatched() + movieDao.countWatchlist());
             
-            // Export watched entries
-            JSONArray watchedArray = new JSONArray();
-            for (WatchedEntry entry : watchedEntries) {
-                JSONObject entryJson = new JSONObject();
-                entryJson.put("id", entry.id);
-                entryJson.put("title", entry.title);
-                entryJson.put("rating", entry.rating != null ? entry.rating : JSONObject.NULL);
-                entryJson.put("watchedDate", entry.watchedDate);
-                entryJson.put("locationType", entry.locationType);
-                entryJson.put("locationNotes", entry.locationNotes != null ? entry.locationNotes : JSONObject.NULL);
-                entryJson.put("companions", entry.companions != null ? entry.companions : JSONObject.NULL);
-                entryJson.put("spendCents", entry.spendCents != null ? entry.spendCents : JSONObject.NULL);
-                entryJson.put("durationMin", entry.durationMin != null ? entry.durationMin : JSONObject.NULL);
-                entryJson.put("timeOfDay", entry.timeOfDay);
-                entryJson.put("genre", entry.genre != null ? entry.genre : JSONObject.NULL);
-                entryJson.put("notes", entry.notes != null ? entry.notes : JSONObject.NULL);
-                entryJson.put("posterUri", entry.posterUri != null ? entry.posterUri : JSONObject.NULL);
-                entryJson.put("language", entry.language != null ? entry.language : JSONObject.NULL);
-                entryJson.put("theaterName", entry.theaterName != null ? entry.theaterName : JSONObject.NULL);
-                entryJson.put("city", entry.city != null ? entry.city : JSONObject.NULL);
-                entryJson.put("streamingPlatform", entry.streamingPlatform != null ? entry.streamingPlatform : JSONObject.NULL);
-                watchedArray.put(entryJson);
-            }
-            exportData.put("watchedEntries", watchedArray);
-            
-            // Export watchlist items
-            JSONArray watchlistArray = new JSONArray();
-            for (WatchlistItem item : watchlistItems) {
-                JSONObject itemJson = new JSONObject();
-                itemJson.put("id", item.id);
-                itemJson.put("title", item.title);
-                itemJson.put("notes", item.notes != null ? item.notes : JSONObject.NULL);
-                itemJson.put("priority", item.priority != null ? item.priority : JSONObject.NULL);
-                itemJson.put("createdAt", item.createdAt != null ? item.createdAt : JSONObject.NULL);
-                itemJson.put("targetDate", item.targetDate != null ? item.targetDate : JSONObject.NULL);
-                itemJson.put("language", item.language != null ? item.language : JSONObject.NULL);
-                itemJson.put("whereToWatch", item.whereToWatch != null ? item.whereToWatch : JSONObject.NULL);
-                itemJson.put("releaseDate", item.releaseDate != null ? item.releaseDate : JSONObject.NULL);
-                watchlistArray.put(itemJson);
-            }
-            exportData.put("watchlistItems", watchlistArray);
-            
-            // Write to file
             String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            String fileName = "moviememo_export_" + timestamp + ".json";
+            String fileName = "moviememo_export_" + timestamp + (compress ? ".json.gz" : ".json");
             File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
             File exportFile = new File(downloadsDir, fileName);
             
-            try (FileOutputStream fos = new FileOutputStream(exportFile)) {
-                fos.write(exportData.toString(2).getBytes(StandardCharsets.UTF_8));
-            }
+            new DataPipeline(new JsonCodec.Encoder(), compress, job).run(exportFile, exportCursors(movieDao));
             
             return new ExportResult(true, exportFile.getAbsolutePath(), null);
+        } catch (CancellationException e) {
+            return new ExportResult(false, null, e.getMessage());
         } catch (Exception e) {
             Log.e(TAG, "Error exporting to JSON", e);
             return new ExportResult(false, null, e.getMessage());
+        } finally {
+            Log.i(TAG, "JSON export: " + job.finish());
         }
     }
     
-    // Export to CSV
+    // Export to CSV through the staged pipeline, uncompressed so spreadsheet apps can open it
     public static ExportResult exportToCsv(Context context) {
+        return exportToCsv(context, new TransferJob());
+    }
+    
+    public static ExportResult exportToCsv(Context context, TransferJob job) {
         try {
-            List<WatchedEntry> watchedEntries = AppDatabase.getDatabase(context)
-                    .movieDao().getAllWatchedSync();
-            List<WatchlistItem> watchlistItems = AppDatabase.getDatabase(context)
-                    .movieDao().getAllWatchlistSync();
-            
-            StringBuilder csvContent = new StringBuilder();
-            
-            // CSV Header
-            csvContent.append("Type,Title,Rating,Watched Date,Location Type,Location Notes,Companions,")
-                    .append("Spend (Cents),Duration (Min),Time of Day,Genre,Notes,Poster URI,Language,")
-                    .append("Theater Name,City,Streaming Platform,Priority,Created At,Target Date,")
-                    .append("Where To Watch,Release Date\n");
-            
-            // Export watched entries
-            for (WatchedEntry entry : watchedEntries) {
-                csvContent.append("Watched,")
-                        .append(escapeCsv(entry.title)).append(",")
-                        .append(entry.rating != null ? entry.rating : "").append(",")
-                        .append(escapeCsv(entry.watchedDate)).append(",")
-                        .append(escapeCsv(entry.locationType)).append(",")
-                        .append(escapeCsv(entry.locationNotes)).append(",")
-                        .append(escapeCsv(entry.companions)).append(",")
-                        .append(entry.spendCents != null ? entry.spendCents : "").append(",")
-                        .append(entry.durationMin != null ? entry.durationMin : "").append(",")
-                        .append(escapeCsv(entry.timeOfDay)).append(",")
-                        .append(escapeCsv(entry.genre)).append(",")
-                        .append(escapeCsv(entry.notes)).append(",")
-                        .append(escapeCsv(entry.posterUri)).append(",")
-                        .append(escapeCsv(entry.language)).append(",")
-                        .append(escapeCsv(entry.theaterName)).append(",")
-                        .append(escapeCsv(entry.city)).append(",")
-                        .append(escapeCsv(entry.streamingPlatform)).append(",")
-                        .append(",").append(",").append(",").append(",").append(",").append("\n");
-            }
-            
-            // Export watchlist items
-            for (WatchlistItem item : watchlistItems) {
-                csvContent.append("Watchlist,")
-                        .append(escapeCsv(item.title)).append(",") // Title
-                        .append(",") // Rating (empty for watchlist)
-                        .append(",") // Watched Date (empty for watchlist)
-                        .append(",") // Location Type (empty for watchlist)
-                        .append(",") // Location Notes (empty for watchlist)
-                        .append(",") // Companions (empty for watchlist)
-                        .append(",") // Spend (Cents) (empty for watchlist)
-                        .append(",") // Duration (Min) (empty for watchlist)
-                        .append(",") // Time of Day (empty for watchlist)
-                        .append(",") // Genre (empty for watchlist)
-                        .append(escapeCsv(item.notes)).append(",") // Notes
-                        .append(",") // Poster URI (empty for watchlist)
-                        .append(escapeCsv(item.language)).append(",") // Language
-                        .append(",") // Theater Name (empty for watchlist)
-                        .append(",") // City (empty for watchlist)
-                        .append(",") // Streaming Platform (empty for watchlist)
-                        .append(item.priority != null ? item.priority : "").append(",") // Priority
-                        .append(item.createdAt != null ? item.createdAt : "").append(",") // Created At
-                        .append(item.targetDate != null ? item.targetDate : "").append(",") // Target Date
-                        .append(escapeCsv(item.whereToWatch)).append(",") // Where To Watch
-                        .append(item.releaseDate != null ? item.releaseDate : "").append("\n"); // Release Date
-            }
+            MovieDao movieDao = AppDatabase.getDatabase(context).movieDao();
+            job.setTotalRows(movieDao.countWatched() + movieDao.countWatchlist());
             
-            // Write to file
             String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
             String fileName = "moviememo_export_" + timestamp + ".csv";
             File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
             File exportFile = new File(downloadsDir, fileName);
             
-            try (FileOutputStream fos = new FileOutputStream(exportFile)) {
-                fos.write(csvContent.toString().getBytes(StandardCharsets.UTF_8));
-            }
+            new DataPipeline(new CsvCodec.Encoder(), false, job).run(exportFile, exportCursors(movieDao));
             
             return new ExportResult(true, exportFile.getAbsolutePath(), null);
+        } catch (CancellationException e) {
+            return new ExportResult(false, null, e.getMessage());
         } catch (Exception e) {
             Log.e(TAG, "Error exporting to CSV", e);
             return new ExportResult(false, null, e.getMessage());
+        } finally {
+            Log.i(TAG, "CSV export: " + job.finish());
         }
     }
     
-    // Import from JSON
-    public static ImportResult importFromJson(Context context, String filePath) {
+    // One cursor per BackupSchema table, in schema order
+    private static Cursor[] exportCursors(MovieDao movieDao) {
+        Cursor[] cursors = new Cursor[BackupSchema.TABLES.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = movieDao.exportCursor(BackupSchema.TABLES.get(i).exportQuery());
+        }
+        return cursors;
+    }
+    
+    // Export to the compact binary backup format; delta backups chain from the latest backup
+    public static ExportResult exportToBackup(Context context, TransferJob job) {
+        return exportBackup(context, false, job);
+    }
+    
+    // Export only the rows changed or deleted since the latest backup, full or delta
+    public static ExportResult exportDeltaBackup(Context context, TransferJob job) {
+        return exportBackup(context, true, job);
+    }
+    
+    private static ExportResult exportBackup(Context context, boolean delta, TransferJob job) {
+        File exportFile = null;
+        boolean exported = false;
         try {
-            File importFile = new File(filePath);
-            if (!importFile.exists()) {
-                return new ImportResult(false, 0, 0, "File not found");
-            }
+            MovieDao movieDao = AppDatabase.getDatabase(context).movieDao();
             
-            StringBuilder jsonContent = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(importFile), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    jsonContent.append(line);
+            long baseSeq = 0;
+            if (delta) {
+                Long checkpoint = movieDao.getExportCheckpoint(ExportCheckpoint.BACKUP);
+                if (checkpoint == null) {
+                    return new ExportResult(false, null, "Export a full backup first");
                 }
+                baseSeq = checkpoint;
+            }
+            // Read before the rows, so a change racing the export is also in the next delta
+            long seq = movieDao.latestChangeSeq();
+            if (!delta) {
+                job.setTotalRows(movieDao.countWatched() + movieDao.countWatchlist());
             }
             
-            JSONObject exportData = new JSONObject(jsonContent.toString());
+            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+            String fileName = (delta ? "moviememo_delta_" : "moviememo_backup_") + timestamp + ".mmbk";
+            File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+            exportFile = new File(downloadsDir, fileName);
             
-            List<WatchedEntry> watchedEntries = new ArrayList<>();
-            JSONArray watchedArray = exportData.getJSONArray("watchedEntries");
-            for (int i = 0; i < watchedArray.length(); i++) {
-                JSONObject entryJson = watchedArray.getJSONObject(i);
-                WatchedEntry entry = new WatchedEntry(
-                        entryJson.getString("title"),
-                        entryJson.getString("watchedDate"),
-                        entryJson.getString("locationType"),
-                        entryJson.getString("timeOfDay")
-                );
-                entry.id = entryJson.getLong("id");
-                entry.rating = entryJson.isNull("rating") ? null : entryJson.getInt("rating");
-                entry.locationNotes = entryJson.isNull("locationNotes") ? null : entryJson.getString("locationNotes");
-                entry.companions = entryJson.isNull("companions") ? null : entryJson.getString("companions");
-                entry.spendCents = entryJson.isNull("spendCents") ? null : entryJson.getInt("spendCents");
-                entry.durationMin = entryJson.isNull("durationMin") ? null : entryJson.getInt("durationMin");
-                entry.genre = entryJson.isNull("genre") ? null : entryJson.getString("genre");
-                entry.notes = entryJson.isNull("notes") ? null : entryJson.getString("notes");
-                entry.posterUri = entryJson.isNull("posterUri") ? null : entryJson.getString("posterUri");
-                entry.language = entryJson.isNull("language") ? null : entryJson.getString("language");
-                entry.theaterName = entryJson.isNull("theaterName") ? null : entryJson.getString("theaterName");
-                entry.city = entryJson.isNull("city") ? null : entryJson.getString("city");
-                entry.streamingPlatform = entryJson.isNull("streamingPlatform") ? null : entryJson.getString("streamingPlatform");
-                watchedEntries.add(entry);
+            // A delta carries each table's changed rows and then its deleted ids
+            List<Cursor> cursors = new ArrayList<>();
+            for (BackupSchema.Table<?> table : BackupSchema.TABLES) {
+                if (delta) {
+                    cursors.add(movieDao.exportCursor(table.changedQuery(baseSeq, seq)));
+                    cursors.add(movieDao.exportCursor(table.deletedQuery(baseSeq, seq)));
+                } else {
+                    cursors.add(movieDao.exportCursor(table.exportQuery()));
+                }
             }
+            new DataPipeline(new BinaryBackup.Writer(System.currentTimeMillis(), delta, baseSeq, seq), false, job)
+                    .run(exportFile, cursors.toArray(new Cursor[0]));
             
-            List<WatchlistItem> watchlistItems = new ArrayList<>();
-            JSONArray watchlistArray = exportData.getJSONArray("watchlistItems");
-            for (int i = 0; i < watchlistArray.length(); i++) {
-                JSONObject itemJson = watchlistArray.getJSONObject(i);
-                WatchlistItem item = new WatchlistItem(itemJson.getString("title"));
-                item.id = itemJson.getLong("id");
-                item.notes = itemJson.isNull("notes") ? null : itemJson.getString("notes");
-                item.priority = itemJson.isNull("priority") ? null : itemJson.getInt("priority");
-                item.createdAt = itemJson.isNull("createdAt") ? null : itemJson.getLong("createdAt");
-                item.targetDate = itemJson.isNull("targetDate") ? null : itemJson.getLong("targetDate");
-                item.language = itemJson.isNull("language") ? null : itemJson.getString("language");
-                item.whereToWatch = itemJson.isNull("whereToWatch") ? null : itemJson.getString("whereToWatch");
-                item.releaseDate = itemJson.isNull("releaseDate") ? null : itemJson.getLong("releaseDate");
-                watchlistItems.add(item);
+            movieDao.commitExportCheckpoint(ExportCheckpoint.BACKUP, seq);
+            exported = true;
+            return new ExportResult(true, exportFile.getAbsolutePath(), null);
+        } catch (CancellationException e) {
+            return new ExportResult(false, null, e.getMessage());
+        } catch (Exception e) {
+            Log.e(TAG, "Error exporting backup", e);
+            return new ExportResult(false, null, e.getMessage());
+        } finally {
+            // A backup without its checkpoint would break the delta chain, so it is not kept
+            if (!exported && exportFile != null && exportFile.exists() && !exportFile.delete()) {
+                Log.w(TAG, "Couldn't delete partial backup " + exportFile);
             }
+            Log.i(TAG, (delta ? "Delta backup" : "Backup") + " export: " + job.finish());
+        }
+    }
+    
+    // Export the database file itself, the fastest backup of a large library. The copy is taken
+    // with VACUUM INTO where the platform SQLite has it, or after a WAL checkpoint otherwise.
+    public static ExportResult exportSnapshot(Context context, boolean compress, TransferJob job) {
+        File snapshot = null;
+        File exportFile = null;
+        boolean exported = false;
+        try {
+            snapshot = File.createTempFile("snapshot", ".db", context.getCacheDir());
+            long start = System.nanoTime();
+            DatabaseSnapshot.capture(context, snapshot);
+            job.addPhaseTime("snapshot", System.nanoTime() - start);
             
-            // Insert into database
-            AppDatabase.getDatabase(context).movieDao().insertWatchedBulk(watchedEntries);
-            AppDatabase.getDatabase(context).movieDao().insertWatchlistBulk(watchlistItems);
+            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+            String fileName = "moviememo_snapshot_" + timestamp + (compress ? ".db.gz" : ".db");
+            File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+            exportFile = new File(downloadsDir, fileName);
             
-            return new ImportResult(true, watchedEntries.size(), watchlistItems.size(), null);
+            start = System.nanoTime();
+            SnapshotCopy.write(snapshot, exportFile, compress, job);
+            job.addPhaseTime(compress ? "compress" : "write", System.nanoTime() - start);
+            exported = true;
+            return new ExportResult(true, exportFile.getAbsolutePath(), null);
+        } catch (CancellationException e) {
+            return new ExportResult(false, null, e.getMessage());
         } catch (Exception e) {
-            Log.e(TAG, "Error importing from JSON", e);
-            return new ImportResult(false, 0, 0, e.getMessage());
+            Log.e(TAG, "Error exporting snapshot", e);
+            return new ExportResult(false, null, e.getMessage());
+        } finally {
+            if (snapshot != null && !snapshot.delete()) {
+                Log.w(TAG, "Couldn't delete " + snapshot);
+            }
+            if (!exported && exportFile != null && exportFile.exists() && !exportFile.delete()) {
+                Log.w(TAG, "Couldn't delete partial snapshot " + exportFile);
+            }
+            Log.i(TAG, "Snapshot export: " + job.finish());
         }
     }
     
-    // Import from CSV (simplified - only basic fields)
-    public static ImportResult importFromCsv(Context context, String filePath) {
+    // Replace the database with a snapshot from exportSnapshot, gzipped or not. The snapshot is
+    // checked against this app's schema version, migrated if older, before it is swapped in; like
+    // restoreBackupChain, screens holding the old database must be recreated afterwards.
+    public static ImportResult restoreSnapshot(Context context, String filePath, TransferJob job) {
+        boolean committed = false;
         try {
             File importFile = new File(filePath);
             if (!importFile.exists()) {
-                return new ImportResult(false, 0, 0, "File not found");
+                throw new FileNotFoundException("File not found: " + filePath);
             }
             
-            List<WatchedEntry> watchedEntries = new ArrayList<>();
-            List<WatchlistItem> watchlistItems = new ArrayList<>();
+            long start = System.nanoTime();
+            SnapshotCopy.read(importFile, DatabaseSnapshot.stagedFile(context), job);
+            job.addPhaseTime("read", System.nanoTime() - start);
             
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(importFile), StandardCharsets.UTF_8))) {
-                String line = reader.readLine(); // Skip header
-                
-                while ((line = reader.readLine()) != null) {
-                    if (line.trim().isEmpty()) continue;
-                    
-                    String[] values = parseCsvLine(line);
-                    if (values.length < 2) continue;
-                    
-                    String type = values[0].trim();
-                    if ("Watched".equals(type)) {
-                        if (values.length >= 4) {
-                            WatchedEntry entry = new WatchedEntry(
-                                    unescapeCsv(values[1]), // Title
-                                    values[3], // Watched Date
-                                    values[4], // Location Type
-                                    values.length > 9 && !values[9].isEmpty() ? values[9] : "MORNING" // Time of Day
-                            );
-                            entry.rating = values.length > 2 && !values[2].isEmpty() ? Integer.parseInt(values[2]) : null;
-                            entry.locationNotes = values.length > 5 && !values[5].isEmpty() ? unescapeCsv(values[5]) : null;
-                            entry.companions = values.length > 6 && !values[6].isEmpty() ? unescapeCsv(values[6]) : null;
-                            entry.spendCents = values.length > 7 && !values[7].isEmpty() ? Integer.parseInt(values[7]) : null;
-                            entry.durationMin = values.length > 8 && !values[8].isEmpty() ? Integer.parseInt(values[8]) : null;
-                            entry.genre = values.length > 10 && !values[10].isEmpty() ? unescapeCsv(values[10]) : null;
-                            entry.notes = values.length > 11 && !values[11].isEmpty() ? unescapeCsv(values[11]) : null;
-                            entry.posterUri = values.length > 12 && !values[12].isEmpty() ? unescapeCsv(values[12]) : null;
-                            entry.language = values.length > 13 && !values[13].isEmpty() ? unescapeCsv(values[13]) : null;
-                            entry.theaterName = values.length > 14 && !values[14].isEmpty() ? unescapeCsv(values[14]) : null;
-                            entry.city = values.length > 15 && !values[15].isEmpty() ? unescapeCsv(values[15]) : null;
-                            entry.streamingPlatform = values.length > 16 && !values[16].isEmpty() ? unescapeCsv(values[16]) : null;
-                            watchedEntries.add(entry);
-                        }
-                    } else if ("Watchlist".equals(type)) {
-                        if (values.length >= 2) {
-                            WatchlistItem item = new WatchlistItem(unescapeCsv(values[1])); // Title
-                            item.notes = values.length > 11 && !values[11].isEmpty() ? unescapeCsv(values[11]) : null;
-                            item.language = values.length > 13 && !values[13].isEmpty() ? unescapeCsv(values[13]) : null;
-                            item.priority = values.length > 17 && !values[17].isEmpty() ? Integer.parseInt(values[17]) : null;
-                            item.createdAt = values.length > 18 && !values[18].isEmpty() ? Long.parseLong(values[18]) : System.currentTimeMillis();
-                            item.targetDate = values.length > 19 && !values[19].isEmpty() ? Long.parseLong(values[19]) : null;
-                            item.whereToWatch = values.length > 20 && !values[20].isEmpty() ? unescapeCsv(values[20]) : null;
-                            item.releaseDate = values.length > 21 && !values[21].isEmpty() ? Long.parseLong(values[21]) : null;
-                            watchlistItems.add(item);
-                        }
-                    }
-                }
+            start = System.nanoTime();
+            DatabaseSnapshot.validateStaged(context);
+            job.addPhaseTime("verify", System.nanoTime() - start);
+            job.throwIfCancelled();
+            
+            start = System.nanoTime();
+            // Queued writes finish against the old database before it closes
+            if (!MovieRepository.shutdown()) {
+                throw new IOException("Pending writes didn't finish");
             }
+            DatabaseSnapshot.commitStaged(context);
+            committed = true;
+            job.addPhaseTime("swap", System.nanoTime() - start);
             
-            // Insert into database
-            if (!watchedEntries.isEmpty()) {
-                AppDatabase.getDatabase(context).movieDao().insertWatchedBulk(watchedEntries);
+            MovieDao movieDao = AppDatabase.getDatabase(context).movieDao();
+            return new ImportResult(true, movieDao.countWatched(), movieDao.countWatchlist(), null);
+        } catch (CancellationException e) {
+            return new ImportResult(false, 0, 0, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ImportResult(false, 0, 0, "Interrupted");
+        } catch (Exception e) {
+            Log.e(TAG, "Error restoring snapshot", e);
+            return new ImportResult(false, 0, 0, e.getMessage());
+        } finally {
+            if (!committed) {
+                DatabaseSnapshot.discardStaged(context);
             }
-            if (!watchlistItems.isEmpty()) {
-                AppDatabase.getDatabase(context).movieDao().insertWatchlistBulk(watchlistItems);
+            Log.i(TAG, "Snapshot restore: " + job.finish());
+        }
+    }
+    
+    // Restore one binary backup, full or delta, on top of the current data
+    public static ImportResult importFromBackup(Context context, String filePath, TransferJob job) {
+        return importBackupChain(context, Collections.singletonList(filePath), job);
+    }
+    
+    // Restore a full backup followed by the deltas exported after it, in any order; each delta
+    // must start where the previous file ended. A chain of only deltas applies on top of the
+    // current data.
+    public static ImportResult importBackupChain(Context context, List<String> filePaths, TransferJob job) {
+        return runImport(context, "backup", job, null, sink -> readBackupChain(filePaths, false, sink, job));
+    }
+    
+    // Replace the whole library with a full backup and the deltas exported after it. The rows
+    // are loaded into a shadow database that is checked and then swapped in for the live one,
+    // which is much faster than upserting and leaves the library as it was if anything fails
+    // before the swap. Genres and notification settings are kept. On success the database and
+    // MovieRepository have been reopened, so screens holding the old ones must be recreated.
+    public static ImportResult restoreBackupChain(Context context, List<String> filePaths, TransferJob job) {
+        ShadowDatabase shadow = null;
+        boolean committed = false;
+        try {
+            shadow = ShadowDatabase.create(context);
+            RestoredIds restored = new RestoredIds();
+            ImportResult result = importInto(shadow.getDatabase(), null, "restore", job, null,
+                    sink -> readBackupChain(filePaths, true, restored.into(sink), job));
+            if (!result.success) {
+                // Nothing reached the live database
+                return new ImportResult(false, 0, 0, result.errorMessage);
             }
             
-            return new ImportResult(true, watchedEntries.size(), watchlistItems.size(), null);
+            long start = System.nanoTime();
+            shadow.finishLoad();
+            job.addPhaseTime("index", System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            shadow.verify(restored.counts());
+            job.addPhaseTime("verify", System.nanoTime() - start);
+            job.throwIfCancelled();
+            
+            start = System.nanoTime();
+            // Queued writes finish against the old database before it closes
+            if (!MovieRepository.shutdown()) {
+                throw new IOException("Pending writes didn't finish");
+            }
+            shadow.commit();
+            committed = true;
+            job.addPhaseTime("swap", System.nanoTime() - start);
+            return result;
+        } catch (CancellationException e) {
+            return new ImportResult(false, 0, 0, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ImportResult(false, 0, 0, "Interrupted");
         } catch (Exception e) {
-            Log.e(TAG, "Error importing from CSV", e);
+            Log.e(TAG, "Error restoring backup", e);
             return new ImportResult(false, 0, 0, e.getMessage());
+        } finally {
+            if (shadow != null && !committed) {
+                shadow.discard();
+            }
+            Log.i(TAG, "Restore: " + job.finish());
         }
     }
     
-    private static String escapeCsv(String value) {
-        if (value == null || value.isEmpty()) {
-            return "";
+    // Ids of the rows a restore should end up with, per table, for ShadowDatabase.verify
+    private static final class RestoredIds {
+        final Map<BackupSchema.Table<?>, Set<Long>> ids = new HashMap<>();
+        
+        RowSink into(RowSink sink) {
+            return new RowSink() {
+                @Override
+                public void row(BackupSchema.Table<?> table, Object[] values) throws IOException {
+                    // A row without its id would get a new one, which the backup can't be checked against
+                    Long id = (Long) values[table.indexOf("id")];
+                    if (id == null) {
+                        throw new IOException(table.key + " row has no id");
+                    }
+                    ids(table).add(id);
+                    sink.row(table, values);
+                }
+                
+                @Override
+                public void deleted(BackupSchema.Table<?> table, long id) throws IOException {
+                    ids(table).remove(id);
+                    sink.deleted(table, id);
+                }
+            };
         }
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+        
+        Map<String, Integer> counts() {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (BackupSchema.Table<?> table : BackupSchema.TABLES) {
+                counts.put(table.sqlTable, ids(table).size());
+            }
+            return counts;
+        }
+        
+        private Set<Long> ids(BackupSchema.Table<?> table) {
+            Set<Long> tableIds = ids.get(table);
+            if (tableIds == null) {
+                tableIds = new HashSet<>();
+                ids.put(table, tableIds);
+            }
+            return tableIds;
         }
-        return value;
     }
     
-    private static String unescapeCsv(String value) {
-        if (value == null || value.isEmpty()) {
-            return "";
+    // A restore needs the chain to start with a full backup
+    private static void readBackupChain(List<String> filePaths, boolean needsFull, RowSink sink, TransferJob job)
+            throws IOException {
+        List<BinaryBackup.Reader> readers = new ArrayList<>();
+        try {
+            long totalBytes = 0;
+            for (String filePath : filePaths) {
+                File importFile = new File(filePath);
+                if (!importFile.exists()) {
+                    throw new FileNotFoundException("File not found: " + filePath);
+                }
+                readers.add(new BinaryBackup.Reader(importFile));
+                totalBytes += importFile.length();
+            }
+            job.setTotalBytes(totalBytes);
+            
+            // Full backup first, then deltas by the range they cover
+            Collections.sort(readers, (a, b) -> a.isDelta() != b.isDelta()
+                    ? (a.isDelta() ? 1 : -1)
+                    : Long.compare(a.getBaseSeq(), b.getBaseSeq()));
+            if (needsFull && (readers.isEmpty() || readers.get(0).isDelta())) {
+                throw new IOException("Restoring needs a full backup");
+            }
+            for (int i = 1; i < readers.size(); i++) {
+                BinaryBackup.Reader previous = readers.get(i - 1);
+                BinaryBackup.Reader next = readers.get(i);
+                if (!next.isDelta() || next.getBaseSeq() != previous.getSeq()) {
+                    throw new IOException("Backups don't form a chain: expected a delta from " + previous.getSeq());
+                }
+            }
+            
+            for (BinaryBackup.Reader reader : readers) {
+                reader.read(sink, job);
+            }
+        } finally {
+            for (BinaryBackup.Reader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Error closing backup", e);
+                }
+            }
+        }
+    }
+    
+    // Import from JSON, plain or gzipped, inserting in chunks. The file's ids are ignored: rows are
+    // matched to existing ones by content key, and those that match are handled by the policy.
+    public static ImportResult importFromJson(Context context, String filePath) {
+        return importFromJson(context, filePath, DuplicatePolicy.SKIP, new TransferJob());
+    }
+    
+    public static ImportResult importFromJson(Context context, String filePath, TransferJob job) {
+        return importFromJson(context, filePath, DuplicatePolicy.SKIP, job);
+    }
+    
+    public static ImportResult importFromJson(Context context, String filePath, DuplicatePolicy policy,
+                                              TransferJob job) {
+        return runImport(context, "JSON", job, policy, sink -> {
+            try (InputStream in = DataPipeline.openForImport(new File(filePath), job)) {
+                JsonCodec.read(in, sink);
+            }
+        });
+    }
+    
+    // Import from CSV, inserting in chunks and matching duplicates like the JSON import
+    public static ImportResult importFromCsv(Context context, String filePath) {
+        return importFromCsv(context, filePath, DuplicatePolicy.SKIP, new TransferJob());
+    }
+    
+    public static ImportResult importFromCsv(Context context, String filePath, TransferJob job) {
+        return importFromCsv(context, filePath, DuplicatePolicy.SKIP, job);
+    }
+    
+    public static ImportResult importFromCsv(Context context, String filePath, DuplicatePolicy policy,
+                                             TransferJob job) {
+        return runImport(context, "CSV", job, policy, sink -> {
+            try (InputStream in = DataPipeline.openForImport(new File(filePath), job)) {
+                CsvCodec.read(in, sink);
+            }
+        });
+    }
+    
+    private interface ImportSource {
+        void read(RowSink sink) throws IOException;
+    }
+    
+    private static ImportResult runImport(Context context, String format, TransferJob job, DuplicatePolicy policy,
+                                          ImportSource source) {
+        try {
+            return importInto(AppDatabase.getDatabase(context), MovieRepository.getInstance(context), format, job,
+                    policy, source);
+        } finally {
+            Log.i(TAG, format + " import: " + job.finish());
+        }
+    }
+    
+    // Shared by every import: decodes the source into chunked transactions, times parsing apart
+    // from inserting and waiting on the read-ahead stage, and turns failures into the result.
+    // Without a policy rows keep their ids, replacing the rows with the same ids. Chunks for the
+    // live database commit on the repository's writer; a null repository writes to database
+    // directly, which only the shadow database of a restore may do, since nothing else uses it.
+    private static ImportResult importInto(AppDatabase database, MovieRepository repository, String format,
+                                           TransferJob job, DuplicatePolicy policy, ImportSource source) {
+        ImportBatch batch = new ImportBatch(database, repository, job, policy);
+        long parseStart = System.nanoTime();
+        long blockedStart = DataPipeline.blockedNanos();
+        try {
+            source.read(batch);
+            batch.commit();
+            return new ImportResult(true, batch.watchedCount, batch.watchlistCount, batch.duplicateCount,
+                    batch.skippedCount, null);
+        } catch (CancellationException e) {
+            return new ImportResult(false, batch.watchedCount, batch.watchlistCount, batch.duplicateCount,
+                    batch.skippedCount, e.getMessage());
+        } catch (Exception e) {
+            // Chunks committed before the failure stay imported
+            Log.e(TAG, "Error importing " + format + " after " + batch.watchedCount + " watched, " +
+                    batch.watchlistCount + " watchlist", e);
+            return new ImportResult(false, batch.watchedCount, batch.watchlistCount, batch.duplicateCount,
+                    batch.skippedCount, e.getMessage());
+        } finally {
+            job.addPhaseTime("parse", System.nanoTime() - parseStart - batch.insertNanos
+                    - (DataPipeline.blockedNanos() - blockedStart));
+        }
+    }
+    // Rows decoded but not yet committed, and the totals committed so far
+    private static final class ImportBatch implements RowSink {
+        final AppDatabase database;
+        final MovieRepository repository;
+        final TransferJob job;
+        final List<WatchedEntry> watched = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        final List<WatchlistItem> watchlist = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        final List<Long> deletedWatched = new ArrayList<>();
+        final List<Long> deletedWatchlist = new ArrayList<>();
+        // Null when rows keep their ids
+        final DuplicateCheck<WatchedEntry> watchedDuplicates;
+        final DuplicateCheck<WatchlistItem> watchlistDuplicates;
+        int watchedCount = 0;
+        int watchlistCount = 0;
+        int duplicateCount = 0;
+        int skippedCount = 0;
+        long insertNanos = 0;
+        // Duplicates found by the transaction in progress, counted once it commits
+        int pendingWatchedDuplicates;
+        int pendingWatchlistDuplicates;
+        
+        ImportBatch(AppDatabase database, MovieRepository repository, TransferJob job, DuplicatePolicy policy) {
+            this.database = database;
+            this.repository = repository;
+            this.job = job;
+            this.watchedDuplicates = policy != null ? new DuplicateCheck<>(BackupSchema.WATCHED, policy) : null;
+            this.watchlistDuplicates = policy != null ? new DuplicateCheck<>(BackupSchema.WATCHLIST, policy) : null;
+        }
+        
+        @Override
+        public void row(BackupSchema.Table<?> table, Object[] values) throws IOException {
+            job.throwIfCancelled();
+            try {
+                if (table == BackupSchema.WATCHED) {
+                    watched.add(watchedDuplicates != null ? watchedDuplicates.add(values)
+                            : BackupSchema.WATCHED.create(values));
+                } else if (table == BackupSchema.WATCHLIST) {
+                    watchlist.add(watchlistDuplicates != null ? watchlistDuplicates.add(values)
+                            : BackupSchema.WATCHLIST.create(values));
+                }
+            } catch (BackupSchema.MissingFieldException e) {
+                // One bad row in a hand-edited file shouldn't cost the rest of the import
+                if (skippedCount++ == 0) {
+                    Log.w(TAG, "Skipping rows without required fields, first: " + e.getMessage());
+                }
+                return;
+            }
+            if (isFull()) {
+                commit();
+            }
+        }
+        
+        @Override
+        public void deleted(BackupSchema.Table<?> table, long id) {
+            job.throwIfCancelled();
+            if (table == BackupSchema.WATCHED) {
+                deletedWatched.add(id);
+            } else if (table == BackupSchema.WATCHLIST) {
+                deletedWatchlist.add(id);
+            }
+            if (isFull()) {
+                commit();
+            }
+        }
+        
+        boolean isFull() {
+            return watched.size() + watchlist.size() + deletedWatched.size() + deletedWatchlist.size()
+                    >= IMPORT_CHUNK_SIZE;
         }
-        if (value.startsWith("\"") && value.endsWith("\"")) {
-            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        
+        // Commits everything pending in one transaction. Cancelling rolls that transaction back,
+        // leaving only the chunks committed before it.
+        void commit() {
+            int watchedRows = watched.size();
+            int watchlistRows = watchlist.size();
+            int rows = watchedRows + watchlistRows + deletedWatched.size() + deletedWatchlist.size();
+            if (rows == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                // Resolves copies of the pending rows, so a replayed attempt starts from the decoded ones
+                Runnable write = () -> {
+                    job.throwIfCancelled();
+                    MovieDao movieDao = database.movieDao();
+                    List<WatchedEntry> watchedRows = new ArrayList<>(watched);
+                    List<WatchlistItem> watchlistRows = new ArrayList<>(watchlist);
+                    pendingWatchedDuplicates = 0;
+                    pendingWatchlistDuplicates = 0;
+                    // Checked in the transaction, so nothing can add a match between the check and the write
+                    if (watchedDuplicates != null && !watchedRows.isEmpty()) {
+                        pendingWatchedDuplicates = watchedDuplicates.resolve(movieDao, watchedRows);
+                    }
+                    if (watchlistDuplicates != null && !watchlistRows.isEmpty()) {
+                        pendingWatchlistDuplicates = watchlistDuplicates.resolve(movieDao, watchlistRows);
+                    }
+                    if (!watchedRows.isEmpty()) {
+                        movieDao.upsertWatchedBulk(watchedRows);
+                    }
+                    if (!watchlistRows.isEmpty()) {
+                        movieDao.upsertWatchlistBulk(watchlistRows);
+                    }
+                    if (!deletedWatched.isEmpty()) {
+                        movieDao.deleteWatchedByIds(deletedWatched);
+                    }
+                    if (!deletedWatchlist.isEmpty()) {
+                        movieDao.deleteWatchlistByIds(deletedWatchlist);
+                    }
+                    job.throwIfCancelled();
+                };
+                if (repository != null) {
+                    await(repository.submitWrite(write));
+                } else {
+                    database.runInTransaction(write);
+                }
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                insertNanos += elapsed;
+                job.addPhaseTime("insert", elapsed);
+            }
+            watchedCount += watchedRows - pendingWatchedDuplicates;
+            watchlistCount += watchlistRows - pendingWatchlistDuplicates;
+            duplicateCount += pendingWatchedDuplicates + pendingWatchlistDuplicates;
+            watched.clear();
+            watchlist.clear();
+            deletedWatched.clear();
+            deletedWatchlist.clear();
+            if (watchedDuplicates != null) {
+                watchedDuplicates.clear();
+                watchlistDuplicates.clear();
+            }
+            job.addRows(rows);
+        }
+        
+        // Waits out an interrupt too, so the counts always match what committed. Rethrows what
+        // the write failed with, cancellation included.
+        private static void await(ListenableFuture<Void> write) {
+            try {
+                Uninterruptibles.getUninterruptibly(write);
+            } catch (ExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IllegalStateException(e.getCause());
+            }
         }
-        return value;
     }
     
-    private static String[] parseCsvLine(String line) {
-        List<String> values = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder current = new StringBuilder();
+    // Matches imported rows to rows already in the table by content key, for files whose ids mean
+    // nothing in this library. A Bloom filter of the table's keys, read once off the contentKey
+    // index, lets rows that are certainly new through without a lookup; the keys it might hold
+    // are read back with one indexed query per chunk. Keys written by the import go into the
+    // filter too, so a row repeated later in the file is found like any other duplicate.
+    private static final class DuplicateCheck<E> {
+        final BackupSchema.Table<E> table;
+        final DuplicatePolicy policy;
+        final int idIndex;
+        // Values of the pending rows, in the same order
+        final List<Object[]> values = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        BloomFilter<Long> keys;
         
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    current.append('"');
-                    i++;
+        DuplicateCheck(BackupSchema.Table<E> table, DuplicatePolicy policy) {
+            this.table = table;
+            this.policy = policy;
+            this.idIndex = table.indexOf("id");
+        }
+        
+        // The entity for a decoded row, without the id it had in the file
+        E add(Object[] rowValues) throws IOException {
+            Object[] copy = rowValues.clone();
+            copy[idIndex] = null;
+            E entity = table.create(copy);
+            values.add(copy);
+            return entity;
+        }
+        
+        // Turns the pending rows into the rows to write: new rows as they are, and each duplicate
+        // dropped or pointed at the row it matches, as the policy says. Returns the duplicates.
+        // The pending values are kept until clear(), so a rolled-back chunk can be resolved again.
+        int resolve(MovieDao movieDao, List<E> rows) {
+            if (keys == null) {
+                keys = loadKeys(movieDao);
+            }
+            Set<Long> candidates = new HashSet<>();
+            for (E row : rows) {
+                long key = table.contentKey(row);
+                if (keys.mightContain(key)) {
+                    candidates.add(key);
+                }
+            }
+            Map<Long, Object[]> existing = existing(movieDao, candidates);
+            
+            // Position in resolved of the row written for each key, so a repeat within the chunk
+            // resolves against it
+            Map<Long, Integer> written = new HashMap<>();
+            List<E> resolved = new ArrayList<>(rows.size());
+            List<Object[]> resolvedValues = new ArrayList<>(rows.size());
+            int duplicates = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                long key = table.contentKey(rows.get(i));
+                Object[] incoming = values.get(i);
+                Integer position = written.get(key);
+                Object[] match = position != null ? resolvedValues.get(position) : existing.get(key);
+                if (match == null) {
+                    keys.put(key);
+                    written.put(key, resolved.size());
+                    resolved.add(rows.get(i));
+                    resolvedValues.add(incoming);
+                    continue;
+                }
+                
+                duplicates++;
+                if (policy == DuplicatePolicy.SKIP) {
+                    continue;
+                }
+                Object[] merged = policy == DuplicatePolicy.MERGE ? fill(match, incoming) : incoming;
+                merged[idIndex] = match[idIndex];
+                E row = create(merged);
+                if (position != null) {
+                    resolved.set(position, row);
+                    resolvedValues.set(position, merged);
                 } else {
-                    inQuotes = !inQuotes;
+                    written.put(key, resolved.size());
+                    resolved.add(row);
+                    resolvedValues.add(merged);
+                }
+            }
+            rows.clear();
+            rows.addAll(resolved);
+            return duplicates;
+        }
+        
+        // Once the chunk has committed
+        void clear() {
+            values.clear();
+        }
+        
+        private BloomFilter<Long> loadKeys(MovieDao movieDao) {
+            try (Cursor cursor = movieDao.exportCursor(table.contentKeysQuery())) {
+                // Sized for as many imported keys again before the false positive rate climbs
+                BloomFilter<Long> filter = BloomFilter.create(Funnels.longFunnel(),
+                        Math.max(2 * cursor.getCount(), MIN_FILTER_KEYS), FILTER_FALSE_POSITIVES);
+                while (cursor.moveToNext()) {
+                    filter.put(cursor.getLong(0));
                 }
-            } else if (c == ',' && !inQuotes) {
-                values.add(current.toString());
-                current = new StringBuilder();
-            } else {
-                current.append(c);
+                return filter;
+            }
+        }
+        
+        // The stored row for each key that has one, the oldest when several share a key
+        private Map<Long, Object[]> existing(MovieDao movieDao, Set<Long> candidates) {
+            Map<Long, Object[]> rows = new HashMap<>();
+            if (candidates.isEmpty()) {
+                return rows;
+            }
+            try (Cursor cursor = movieDao.exportCursor(table.withContentKeysQuery(new ArrayList<>(candidates)))) {
+                int keyColumn = table.size();
+                while (cursor.moveToNext()) {
+                    long key = cursor.getLong(keyColumn);
+                    Object[] row = table.read(cursor);
+                    Object[] kept = rows.get(key);
+                    if (kept == null || (Long) row[idIndex] < (Long) kept[idIndex]) {
+                        rows.put(key, row);
+                    }
+                }
+            }
+            return rows;
+        }
+        
+        // The stored values, with the imported ones where the stored row has none
+        private static Object[] fill(Object[] stored, Object[] incoming) {
+            Object[] merged = stored.clone();
+            for (int i = 0; i < merged.length; i++) {
+                if (merged[i] == null) {
+                    merged[i] = incoming[i];
+                }
+            }
+            return merged;
+        }
+        
+        private E create(Object[] rowValues) {
+            try {
+                return table.create(rowValues);
+            } catch (IOException e) {
+                // Stored and decoded rows both have every required field
+                throw new IllegalStateException(e);
             }
         }
-        values.add(current.toString());
-        return values.toArray(new String[0]);
     }
 }
-
@@ -0,0 +1,144 @@
+package com.entertainment.moviememo.utils;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+// JSON export: metadata, then one array per BackupSchema table of objects keyed by field name,
+// with SQL NULL as JSON null. Fields are matched by name on import, so files from older versions
+// read with the fields they lack left at their defaults, and unknown keys are skipped. A file
+// from a newer BackupSchema.VERSION is rejected, since it may mean something this one can't read.
+final class JsonCodec {
+
+    private JsonCodec() {}
+
+    // Sections are BackupSchema.TABLES in order
+    static final class Encoder implements DataPipeline.Encoder {
+        private JsonWriter writer;
+        private BackupSchema.Table<?> table;
+
+        @Override
+        public void start(OutputStream out) throws IOException {
+            writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("exportDate").value(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
+                    .format(new Date()));
+            writer.name("version").value(BackupSchema.VERSION);
+        }
+
+        @Override
+        public void section(int index, String[] columns) throws IOException {
+            if (table != null) {
+                writer.endArray();
+            }
+            table = BackupSchema.TABLES.get(index);
+            writer.name(table.key);
+            writer.beginArray();
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            writer.beginObject();
+            for (int i = 0; i < values.length; i++) {
+                writer.name(table.fields.get(i).name);
+                Object value = values[i];
+                if (value == null) {
+                    writer.nullValue();
+                } else if (value instanceof Long) {
+                    writer.value((long) (Long) value);
+                } else if (value instanceof Double) {
+                    writer.value((double) (Double) value);
+                } else {
+                    writer.value(value.toString());
+                }
+            }
+            writer.endObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (table != null) {
+                writer.endArray();
+            }
+            writer.endObject();
+            writer.flush();
+        }
+    }
+
+    // Pulls one object at a time into the sink
+    static void read(InputStream in, RowSink sink) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("version")) {
+                    int version = readVersion(reader);
+                    if (version < 1 || version > BackupSchema.VERSION) {
+                        throw new IOException("Unsupported backup version " + version);
+                    }
+                    continue;
+                }
+                BackupSchema.Table<?> table = BackupSchema.byKey(name);
+                if (table == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                Object[] values = new Object[table.size()];
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Arrays.fill(values, null);
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        int index = table.indexOf(reader.nextName());
+                        if (index < 0 || reader.peek() == JsonToken.NULL) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        switch (table.fields.get(index).type) {
+                            case INT:
+                                values[index] = reader.nextInt();
+                                break;
+                            case ID:
+                            case LONG:
+                                values[index] = reader.nextLong();
+                                break;
+                            default:
+                                values[index] = reader.nextString();
+                                break;
+                        }
+                    }
+                    reader.endObject();
+                    sink.row(table, values);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+    }
+
+    // Exports from before the schema was versioned wrote "1.0"; every later one writes VERSION
+    private static int readVersion(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            return reader.nextInt();
+        }
+        String version = reader.nextString();
+        if (version.equals("1.0")) {
+            return 1;
+        }
+        throw new IOException("Unsupported backup version " + version);
+    }
+}
@@ -0,0 +1,13 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.IOException;
+
+// Where the import side of every codec sends what it decodes
+interface RowSink {
+    // values are in the table's field order, null for a field the file doesn't have. The array may
+    // be reused for the next row, so copy anything kept beyond the call.
+    void row(BackupSchema.Table<?> table, Object[] values) throws IOException;
+
+    // A row a delta backup records as deleted
+    void deleted(BackupSchema.Table<?> table, long id) throws IOException;
+}
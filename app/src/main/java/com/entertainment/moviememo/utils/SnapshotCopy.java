@@ -0,0 +1,77 @@
+package com.entertainment.moviememo.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Moves database snapshot files in and out with FileChannel transfers, which copy in the kernel
+// when neither side is compressed. Transfers go in steps, so the job sees progress and can cancel.
+final class SnapshotCopy {
+
+    private static final int STEP_BYTES = 1024 * 1024;
+
+    private SnapshotCopy() {}
+
+    // Copies a captured snapshot to target, gzipped when compress is set
+    static void write(File snapshot, File target, boolean compress, TransferJob job) throws IOException {
+        try (FileChannel in = new FileInputStream(snapshot).getChannel();
+             FileOutputStream out = new FileOutputStream(target)) {
+            job.setTotalBytes(in.size());
+            if (!compress) {
+                transfer(in, out.getChannel(), job);
+                return;
+            }
+            GZIPOutputStream gzip = new GZIPOutputStream(out, STEP_BYTES);
+            transfer(in, Channels.newChannel(gzip), job);
+            gzip.finish();
+        }
+    }
+
+    // Copies a snapshot file, gzipped or not, to target
+    static void read(File source, File target, TransferJob job) throws IOException {
+        try (FileChannel in = new FileInputStream(source).getChannel();
+             FileChannel out = new FileOutputStream(target).getChannel()) {
+            job.setTotalBytes(in.size());
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            in.read(magic, 0);
+            if (magic.position() < 2 || magic.get(0) != (byte) 0x1f || magic.get(1) != (byte) 0x8b) {
+                transfer(in, out, job);
+                return;
+            }
+
+            ReadableByteChannel gunzip = Channels.newChannel(new GZIPInputStream(
+                    new BufferedInputStream(Channels.newInputStream(in), STEP_BYTES), STEP_BYTES));
+            long reported = 0;
+            for (long position = 0; ; ) {
+                job.throwIfCancelled();
+                long count = out.transferFrom(gunzip, position, STEP_BYTES);
+                if (count == 0) {
+                    break;
+                }
+                position += count;
+                // Bytes of the file itself, so progress matches the total
+                job.addBytes(in.position() - reported);
+                reported = in.position();
+            }
+        }
+    }
+
+    private static void transfer(FileChannel in, WritableByteChannel out, TransferJob job) throws IOException {
+        long size = in.size();
+        for (long position = 0; position < size; ) {
+            job.throwIfCancelled();
+            long count = in.transferTo(position, Math.min(STEP_BYTES, size - position), out);
+            position += count;
+            job.addBytes(count);
+        }
+    }
+}
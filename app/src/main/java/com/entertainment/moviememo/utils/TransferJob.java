@@ -0,0 +1,182 @@
+package com.entertainment.moviememo.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One export or import run through ExportImportHelper: progress events while it runs, cooperative
+// cancellation from any thread, and a report with per-phase timings once it returns. Use a new
+// job for every call.
+public class TransferJob {
+
+    // Minimum time between two progress events
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    public interface Listener {
+        // Called on the thread doing the work, at most every 250 ms and once more at the end
+        void onProgress(Progress progress);
+    }
+
+    public static final class Progress {
+        public final long rows;
+        public final long bytes;
+        public final double rowsPerSecond;
+        // -1 while there is nothing to estimate from
+        public final long etaMs;
+
+        Progress(long rows, long bytes, double rowsPerSecond, long etaMs) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.rowsPerSecond = rowsPerSecond;
+            this.etaMs = etaMs;
+        }
+    }
+
+    public static final class Report {
+        public final long rows;
+        public final long bytes;
+        public final long elapsedMs;
+        public final boolean cancelled;
+        // Time each phase spent working, not counting time blocked waiting on another. Pipeline
+        // stages run at the same time, so these can add up to more than elapsedMs; the largest is
+        // the one to speed up.
+        public final Map<String, Long> phaseMs;
+
+        Report(long rows, long bytes, long elapsedMs, boolean cancelled, Map<String, Long> phaseMs) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMs = elapsedMs;
+            this.cancelled = cancelled;
+            this.phaseMs = phaseMs;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(Locale.US, "%d rows, %d bytes in %d ms (%.0f rows/s)",
+                    rows, bytes, elapsedMs, elapsedMs > 0 ? rows * 1000.0 / elapsedMs : 0.0));
+            if (cancelled) {
+                text.append(", cancelled");
+            }
+            for (Map.Entry<String, Long> phase : phaseMs.entrySet()) {
+                text.append("; ").append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms");
+            }
+            return text.toString();
+        }
+    }
+
+    private final Listener listener;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong lastProgressNanos = new AtomicLong(startNanos);
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private volatile long totalRows = -1;
+    private volatile long totalBytes = -1;
+    private volatile boolean cancelled = false;
+    private volatile Report report;
+
+    public TransferJob() {
+        this(null);
+    }
+
+    public TransferJob(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Safe from any thread. The job stops at its next check; an import rolls back the chunk in
+    // flight and keeps the chunks committed before it, an export deletes its partial file.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Null until the job has returned
+    public Report getReport() {
+        return report;
+    }
+
+    void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled");
+        }
+    }
+
+    // Either total lets progress estimate the time left; bytes are preferred when both are known
+    void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    void addRows(long count) {
+        rows.addAndGet(count);
+        maybeReportProgress();
+    }
+
+    void addBytes(long count) {
+        bytes.addAndGet(count);
+        maybeReportProgress();
+    }
+
+    void addPhaseTime(String phase, long nanos) {
+        synchronized (phaseNanos) {
+            Long total = phaseNanos.get(phase);
+            phaseNanos.put(phase, (total != null ? total : 0) + nanos);
+        }
+    }
+
+    // Called once when the job returns, whether it succeeded, failed or was cancelled
+    Report finish() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Map<String, Long> phaseMs = new LinkedHashMap<>();
+        synchronized (phaseNanos) {
+            for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+                phaseMs.put(phase.getKey(), TimeUnit.NANOSECONDS.toMillis(phase.getValue()));
+            }
+        }
+        report = new Report(rows.get(), bytes.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), cancelled,
+                Collections.unmodifiableMap(phaseMs));
+        if (listener != null) {
+            listener.onProgress(progress(System.nanoTime()));
+        }
+        return report;
+    }
+
+    private void maybeReportProgress() {
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastProgressNanos.get();
+        // Only the thread that wins the update reports, so stages never report twice at once
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgressNanos.compareAndSet(last, now)) {
+            listener.onProgress(progress(now));
+        }
+    }
+
+    private Progress progress(long now) {
+        long elapsedNanos = Math.max(1, now - startNanos);
+        long rowsDone = rows.get();
+        long bytesDone = bytes.get();
+        double rowsPerSecond = rowsDone * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+
+        // Remaining work at the rate so far
+        long etaMs = -1;
+        double elapsedMs = elapsedNanos / 1e6;
+        if (totalBytes > 0 && bytesDone > 0) {
+            etaMs = (long) (elapsedMs * Math.max(0, totalBytes - bytesDone) / bytesDone);
+        } else if (totalRows > 0 && rowsDone > 0) {
+            etaMs = (long) (elapsedMs * Math.max(0, totalRows - rowsDone) / rowsDone);
+        }
+        return new Progress(rowsDone, bytesDone, rowsPerSecond, etaMs);
+    }
+}
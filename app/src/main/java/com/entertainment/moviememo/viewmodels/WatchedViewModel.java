@@ -5,123 +5,96 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.entertainment.moviememo.data.entities.WatchedEntry;
-import com.entertainment.moviememo.data.entities.MonthCount;
-import com.entertainment.moviememo.data.entities.KeyCount;
-import com.entertainment.moviememo.data.entities.KeySum;
+import com.entertainment.moviememo.data.entities.WatchedListRow;
 import com.entertainment.moviememo.data.entities.Genre;
+import com.entertainment.moviememo.data.enums.SuggestionField;
+import com.entertainment.moviememo.data.enums.WatchedSort;
+import com.entertainment.moviememo.data.paging.WatchedPagingSource;
+import com.entertainment.moviememo.data.query.WatchedQuery;
 import com.entertainment.moviememo.data.repository.MovieRepository;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
 public class WatchedViewModel extends AndroidViewModel {
     
-    private MovieRepository repository;
-    private LiveData<List<WatchedEntry>> allWatched;
-    private LiveData<Integer> watchedCount;
-    private LiveData<Double> averageRating;
-    private LiveData<Integer> totalSpendCents;
-    private LiveData<List<MonthCount>> moviesPerMonth;
-    private LiveData<List<KeyCount>> topTimeOfDay;
-    private LiveData<List<KeyCount>> topGenres;
-    private LiveData<List<KeySum>> spendByLocation;
+    private LiveData<PagingData<WatchedListRow>> pagedWatched;
+    
+    private static final int PAGE_SIZE = 30;
+    private volatile WatchedQuery currentQuery = new WatchedQuery(WatchedSort.DATE_DESC, null, null);
+    private volatile WatchedPagingSource currentPagingSource;
     
     public WatchedViewModel(@NonNull Application application) {
         super(application);
-        repository = new MovieRepository(application);
-        allWatched = repository.getAllWatched();
-        watchedCount = repository.getWatchedCount();
-        averageRating = repository.getAverageRating();
-        totalSpendCents = repository.getTotalSpendCents();
-        moviesPerMonth = repository.getMoviesPerMonth();
-        topTimeOfDay = repository.getTopTimeOfDay();
-        topGenres = repository.getTopGenres();
-        spendByLocation = repository.getSpendByLocation();
-    }
-    
-    public LiveData<List<WatchedEntry>> getAllWatched() {
-        return allWatched;
-    }
-    
-    public LiveData<Integer> getWatchedCount() {
-        return watchedCount;
-    }
-    
-    public LiveData<Double> getAverageRating() {
-        return averageRating;
-    }
-    
-    public LiveData<Integer> getTotalSpendCents() {
-        return totalSpendCents;
+        
+        Pager<WatchedListRow, WatchedListRow> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PAGE_SIZE / 2, false),
+                this::createPagingSource);
+        pagedWatched = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), ViewModelKt.getViewModelScope(this));
     }
     
-    public LiveData<List<MonthCount>> getMoviesPerMonth() {
-        return moviesPerMonth;
+    // Paged watched list; sort, location filter and search all run in SQLite
+    public LiveData<PagingData<WatchedListRow>> getPagedWatched() {
+        return pagedWatched;
     }
     
-    public LiveData<List<KeyCount>> getTopTimeOfDay() {
-        return topTimeOfDay;
+    public void setWatchedQuery(WatchedQuery query) {
+        if (query.equals(currentQuery)) {
+            return;
+        }
+        currentQuery = query;
+        if (currentPagingSource != null) {
+            currentPagingSource.invalidateForNewQuery();
+        }
     }
     
-    public LiveData<List<KeyCount>> getTopGenres() {
-        return topGenres;
+    private WatchedPagingSource createPagingSource() {
+        currentPagingSource = repository().createWatchedPagingSource(currentQuery);
+        return currentPagingSource;
     }
     
-    public LiveData<List<KeySum>> getSpendByLocation() {
-        return spendByLocation;
+    public ListenableFuture<Long> insertWatched(WatchedEntry entry) {
+        return repository().insertWatched(entry);
     }
     
-    public LiveData<List<WatchedEntry>> searchWatched(String query) {
-        return repository.searchWatched(query);
+    public ListenableFuture<Integer> updateWatched(WatchedEntry entry) {
+        return repository().updateWatched(entry);
     }
     
-    public LiveData<List<WatchedEntry>> getWatchedByLocation(String locationType) {
-        return repository.getWatchedByLocation(locationType);
+    public ListenableFuture<Integer> deleteWatched(WatchedEntry entry) {
+        return repository().deleteWatched(entry);
     }
     
-    // Sorting methods
-    public LiveData<List<WatchedEntry>> getWatchedByDateDesc() {
-        return repository.getWatchedByDateDesc();
+    public ListenableFuture<Integer> deleteWatched(long id) {
+        return repository().deleteWatched(id);
     }
     
-    public LiveData<List<WatchedEntry>> getWatchedByDateAsc() {
-        return repository.getWatchedByDateAsc();
+    public LiveData<WatchedEntry> getWatchedById(long id) {
+        return repository().getWatchedById(id);
     }
     
-    public LiveData<List<WatchedEntry>> getWatchedByRatingDesc() {
-        return repository.getWatchedByRatingDesc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedByRatingAsc() {
-        return repository.getWatchedByRatingAsc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedBySpendDesc() {
-        return repository.getWatchedBySpendDesc();
-    }
-    
-    public LiveData<List<WatchedEntry>> getWatchedBySpendAsc() {
-        return repository.getWatchedBySpendAsc();
-    }
-    
-    public void insertWatched(WatchedEntry entry) {
-        repository.insertWatched(entry);
-    }
-    
-    public void updateWatched(WatchedEntry entry) {
-        repository.updateWatched(entry);
-    }
-    
-    public void deleteWatched(WatchedEntry entry) {
-        repository.deleteWatched(entry);
+    public LiveData<List<String>> getSuggestions(SuggestionField field) {
+        return repository().getSuggestions(field);
     }
     
     public LiveData<List<Genre>> getAllGenres() {
-        return repository.getAllGenres();
+        return repository().getAllGenres();
     }
 
-    public void clearAllWatched() {
-        repository.clearAllWatched();
+    public ListenableFuture<Integer> clearAllWatched() {
+        return repository().clearAllWatched();
+    }
+    
+    // Looked up per call: restoring a backup or snapshot shuts the repository down and the next
+    // getInstance opens the replaced database
+    private MovieRepository repository() {
+        return MovieRepository.getInstance(getApplication());
     }
 }
@@ -5,44 +5,64 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import com.entertainment.moviememo.data.entities.WatchlistItem;
+import com.entertainment.moviememo.data.enums.SuggestionField;
+import com.entertainment.moviememo.data.query.WatchlistQuery;
 import com.entertainment.moviememo.data.repository.MovieRepository;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
 public class WatchlistViewModel extends AndroidViewModel {
     
-    private MovieRepository repository;
-    private LiveData<List<WatchlistItem>> allWatchlist;
+    private final MutableLiveData<WatchlistQuery> watchlistQuery = new MutableLiveData<>(new WatchlistQuery(null, null));
+    private LiveData<List<WatchlistItem>> watchlist;
     
     public WatchlistViewModel(@NonNull Application application) {
         super(application);
-        repository = new MovieRepository(application);
-        allWatchlist = repository.getAllWatchlist();
+        watchlist = Transformations.switchMap(watchlistQuery, query -> repository().getWatchlist(query));
     }
     
-    public LiveData<List<WatchlistItem>> getAllWatchlist() {
-        return allWatchlist;
+    // Watchlist for the current filter and search, all evaluated in SQLite
+    public LiveData<List<WatchlistItem>> getWatchlist() {
+        return watchlist;
     }
     
-    public LiveData<List<WatchlistItem>> searchWatchlist(String query) {
-        return repository.searchWatchlist(query);
+    public void setWatchlistQuery(WatchlistQuery query) {
+        if (!query.equals(watchlistQuery.getValue())) {
+            watchlistQuery.setValue(query);
+        }
     }
     
-    public void insertWatchlist(WatchlistItem item) {
-        repository.insertWatchlist(item);
+    public LiveData<List<String>> getSuggestions(SuggestionField field) {
+        return repository().getSuggestions(field);
     }
     
-    public void updateWatchlist(WatchlistItem item) {
-        repository.updateWatchlist(item);
+    public ListenableFuture<Long> insertWatchlist(WatchlistItem item) {
+        return repository().insertWatchlist(item);
     }
     
-    public void deleteWatchlist(WatchlistItem item) {
-        repository.deleteWatchlist(item);
+    public ListenableFuture<Integer> updateWatchlist(WatchlistItem item) {
+        return repository().updateWatchlist(item);
+    }
+    
+    public ListenableFuture<Integer> deleteWatchlist(WatchlistItem item) {
+        return repository().deleteWatchlist(item);
+    }
+    
+    public ListenableFuture<Long> moveToWatched(WatchlistItem item) {
+        return repository().moveToWatched(item);
     }
 
-    public void clearAllWatchlist() {
-        repository.clearAllWatchlist();
+    public ListenableFuture<Integer> clearAllWatchlist() {
+        return repository().clearAllWatchlist();
+    }
+    
+    // Not cached; see WatchedViewModel
+    private MovieRepository repository() {
+        return MovieRepository.getInstance(getApplication());
     }
 }
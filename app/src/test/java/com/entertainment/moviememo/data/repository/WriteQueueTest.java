@@ -0,0 +1,206 @@
+package com.entertainment.moviememo.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.room.DatabaseConfiguration;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriteQueueTest {
+
+    // Stands in for Room: a list of rows, with each transaction rolled back if its body throws
+    private static final class FakeDatabase extends RoomDatabase {
+        final List<String> rows = new ArrayList<>();
+        int transactions = 0;
+
+        @Override
+        public void runInTransaction(@NonNull Runnable body) {
+            transactions++;
+            List<String> before = new ArrayList<>(rows);
+            try {
+                body.run();
+            } catch (RuntimeException e) {
+                rows.clear();
+                rows.addAll(before);
+                throw e;
+            }
+        }
+
+        @NonNull
+        @Override
+        protected SupportSQLiteOpenHelper createOpenHelper(@NonNull DatabaseConfiguration config) {
+            throw new UnsupportedOperationException();
+        }
+
+        @NonNull
+        @Override
+        protected InvalidationTracker createInvalidationTracker() {
+            return new InvalidationTracker(this);
+        }
+
+        @Override
+        public void clearAllTables() {
+            rows.clear();
+        }
+    }
+
+    private final FakeDatabase database = new FakeDatabase();
+    // Drains only when the test says so, so every write below lands in the same batch
+    private final List<Runnable> drains = new ArrayList<>();
+    private final ManualExecutor writer = new ManualExecutor(drains);
+    private final WriteQueue queue = new WriteQueue(database, writer);
+
+    private ListenableFuture<Integer> insert(String row) {
+        return queue.submit(() -> {
+            database.rows.add(row);
+            return database.rows.size();
+        });
+    }
+
+    private ListenableFuture<Integer> failing() {
+        return queue.submit(() -> {
+            database.rows.add("half-written");
+            throw new IllegalStateException("constraint failed");
+        });
+    }
+
+    private void drain() {
+        assertEquals(1, drains.size());
+        drains.remove(0).run();
+    }
+
+    @Test
+    public void batch_commitsInOneTransaction() throws Exception {
+        ListenableFuture<Integer> first = insert("a");
+        ListenableFuture<Integer> second = insert("b");
+        ListenableFuture<Integer> third = insert("c");
+        drain();
+
+        assertEquals(1, database.transactions);
+        assertEquals(Arrays.asList("a", "b", "c"), database.rows);
+        assertEquals(Integer.valueOf(1), first.get());
+        assertEquals(Integer.valueOf(2), second.get());
+        assertEquals(Integer.valueOf(3), third.get());
+    }
+
+    @Test
+    public void failedBatch_retriesEachWriteOnItsOwn() throws Exception {
+        ListenableFuture<Integer> first = insert("a");
+        ListenableFuture<Integer> broken = failing();
+        ListenableFuture<Integer> third = insert("c");
+        drain();
+
+        // The batch, then one transaction per write
+        assertEquals(4, database.transactions);
+        assertEquals(Arrays.asList("a", "c"), database.rows);
+        assertEquals(Integer.valueOf(1), first.get());
+        assertEquals(Integer.valueOf(2), third.get());
+        try {
+            broken.get();
+            fail("Failed write completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void cancelledWrite_isSkipped() throws Exception {
+        ListenableFuture<Integer> cancelled = insert("a");
+        ListenableFuture<Integer> kept = insert("b");
+        assertTrue(cancelled.cancel(false));
+        drain();
+
+        assertEquals(Arrays.asList("b"), database.rows);
+        assertEquals(Integer.valueOf(1), kept.get());
+    }
+
+    @Test
+    public void writesAfterADrain_startAnother() throws Exception {
+        insert("a");
+        drain();
+        ListenableFuture<Integer> later = insert("b");
+        drain();
+
+        assertEquals(2, database.transactions);
+        assertEquals(Integer.valueOf(2), later.get());
+    }
+
+    @Test
+    public void writesAfterShutdown_fail() throws Exception {
+        writer.shutdown();
+        ListenableFuture<Integer> rejected = insert("a");
+
+        assertTrue(rejected.isDone());
+        try {
+            rejected.get();
+            fail("Write after shutdown completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        // Nothing is left queued for a drain that will never come
+        writer.shutdown = false;
+        insert("b");
+        drain();
+        assertEquals(Arrays.asList("b"), database.rows);
+    }
+
+    // Queues tasks for the test to run on its own thread instead of running them
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks;
+        boolean shutdown = false;
+
+        ManualExecutor(List<Runnable> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Shut down");
+            }
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @NonNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>(tasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryBackupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // What a Reader hands its sink, copied since the value arrays are reused
+    private static final class Rows implements RowSink {
+        final List<Object[]> watched = new ArrayList<>();
+        final List<Object[]> watchlist = new ArrayList<>();
+        final List<Long> deletedWatched = new ArrayList<>();
+        final List<Long> deletedWatchlist = new ArrayList<>();
+
+        @Override
+        public void row(BackupSchema.Table<?> table, Object[] values) {
+            (table == BackupSchema.WATCHED ? watched : watchlist).add(values.clone());
+        }
+
+        @Override
+        public void deleted(BackupSchema.Table<?> table, long id) {
+            (table == BackupSchema.WATCHED ? deletedWatched : deletedWatchlist).add(id);
+        }
+    }
+
+    // Values as a cursor hands them to the encoder, every number a Long. Variant 0 leaves every
+    // field but the id null; the others repeat DICT values so the dictionary is reused.
+    private static Object[] row(BackupSchema.Table<?> table, long id, int variant) {
+        Object[] values = new Object[table.size()];
+        for (int i = 0; i < values.length; i++) {
+            BackupSchema.Field<?> field = table.fields.get(i);
+            if (field.type == BackupSchema.Type.ID) {
+                values[i] = id;
+            } else if (variant == 0) {
+                values[i] = null;
+            } else if (field.type == BackupSchema.Type.INT) {
+                values[i] = variant % 2 == 0 ? -(long) i : (long) i * 1000;
+            } else if (field.type == BackupSchema.Type.LONG) {
+                values[i] = variant % 2 == 0 ? Long.MAX_VALUE - i : 1_700_000_000_000L + i;
+            } else if (field.type == BackupSchema.Type.TEXT) {
+                values[i] = field.name + " " + id + ", \"ünïcödé\" 🎬\nline " + i;
+            } else {
+                values[i] = field.name + "_" + variant % 2;
+            }
+        }
+        return values;
+    }
+
+    // What the reader gives back for a written row: INT fields come back as Integer
+    private static Object[] read(BackupSchema.Table<?> table, Object[] written) {
+        Object[] values = written.clone();
+        for (int i = 0; i < values.length; i++) {
+            if (table.fields.get(i).type == BackupSchema.Type.INT && values[i] != null) {
+                values[i] = ((Long) values[i]).intValue();
+            }
+        }
+        return values;
+    }
+
+    private static String[] columns(BackupSchema.Table<?> table) {
+        String[] columns = new String[table.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = table.fields.get(i).name;
+        }
+        return columns;
+    }
+
+    private File writeFull(List<Object[]> watched, List<Object[]> watchlist) throws IOException {
+        File file = folder.newFile("full.mmbk");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            BinaryBackup.Writer writer = new BinaryBackup.Writer(1234567890L, false, 0, 42);
+            writer.start(out);
+            writer.section(0, columns(BackupSchema.WATCHED));
+            for (Object[] values : watched) {
+                writer.row(values);
+            }
+            writer.section(1, columns(BackupSchema.WATCHLIST));
+            for (Object[] values : watchlist) {
+                writer.row(values);
+            }
+            writer.finish();
+        }
+        return file;
+    }
+
+    private static Rows readAll(File file) throws IOException {
+        Rows rows = new Rows();
+        try (BinaryBackup.Reader reader = new BinaryBackup.Reader(file)) {
+            reader.read(rows, new TransferJob());
+        }
+        return rows;
+    }
+
+    @Test
+    public void fullBackup_roundTrips() throws IOException {
+        List<Object[]> watched = Arrays.asList(
+                row(BackupSchema.WATCHED, 1, 1),
+                row(BackupSchema.WATCHED, 2, 0),
+                row(BackupSchema.WATCHED, 300, 2),
+                row(BackupSchema.WATCHED, 1L << 40, 1));
+        List<Object[]> watchlist = Arrays.asList(
+                row(BackupSchema.WATCHLIST, 7, 1),
+                row(BackupSchema.WATCHLIST, 8, 0));
+        File file = writeFull(watched, watchlist);
+
+        try (BinaryBackup.Reader reader = new BinaryBackup.Reader(file)) {
+            assertEquals(BinaryBackup.VERSION, reader.getVersion());
+            assertEquals(1234567890L, reader.getExportedAt());
+            assertFalse(reader.isDelta());
+            assertEquals(0, reader.getBaseSeq());
+            assertEquals(42, reader.getSeq());
+        }
+
+        Rows rows = readAll(file);
+        assertEquals(watched.size(), rows.watched.size());
+        for (int i = 0; i < watched.size(); i++) {
+            assertArrayEquals(read(BackupSchema.WATCHED, watched.get(i)), rows.watched.get(i));
+        }
+        assertEquals(watchlist.size(), rows.watchlist.size());
+        for (int i = 0; i < watchlist.size(); i++) {
+            assertArrayEquals(read(BackupSchema.WATCHLIST, watchlist.get(i)), rows.watchlist.get(i));
+        }
+        assertTrue(rows.deletedWatched.isEmpty());
+    }
+
+    @Test
+    public void emptyBackup_roundTrips() throws IOException {
+        Rows rows = readAll(writeFull(new ArrayList<>(), new ArrayList<>()));
+        assertTrue(rows.watched.isEmpty());
+        assertTrue(rows.watchlist.isEmpty());
+    }
+
+    @Test
+    public void deltaBackup_carriesChangedRowsAndDeletedIds() throws IOException {
+        Object[] changed = row(BackupSchema.WATCHLIST, 5, 1);
+        File file = folder.newFile("delta.mmbk");
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinaryBackup.Writer writer = new BinaryBackup.Writer(99L, true, 42, 57);
+            writer.start(out);
+            writer.section(0, columns(BackupSchema.WATCHED));
+            writer.section(1, new String[]{"id"});
+            writer.row(new Object[]{3L});
+            writer.row(new Object[]{4L});
+            writer.section(2, columns(BackupSchema.WATCHLIST));
+            writer.row(changed);
+            writer.section(3, new String[]{"id"});
+            writer.finish();
+        }
+
+        try (BinaryBackup.Reader reader = new BinaryBackup.Reader(file)) {
+            assertTrue(reader.isDelta());
+            assertEquals(42, reader.getBaseSeq());
+            assertEquals(57, reader.getSeq());
+        }
+        Rows rows = readAll(file);
+        assertTrue(rows.watched.isEmpty());
+        assertEquals(Arrays.asList(3L, 4L), rows.deletedWatched);
+        assertEquals(1, rows.watchlist.size());
+        assertArrayEquals(read(BackupSchema.WATCHLIST, changed), rows.watchlist.get(0));
+        assertTrue(rows.deletedWatchlist.isEmpty());
+    }
+
+    @Test
+    public void truncatedBackup_isRejected() throws IOException {
+        File file = writeFull(Arrays.asList(row(BackupSchema.WATCHED, 1, 1), row(BackupSchema.WATCHED, 2, 2)),
+                new ArrayList<>());
+        // Drop the END record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try {
+            readAll(file);
+            fail("Truncated backup was read");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFiles_areRejected() throws IOException {
+        File file = folder.newFile("notes.txt");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write("not a backup".getBytes("UTF-8"));
+        }
+        new BinaryBackup.Reader(file).close();
+    }
+}
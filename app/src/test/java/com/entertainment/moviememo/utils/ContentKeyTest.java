@@ -0,0 +1,49 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ContentKeyTest {
+
+    // ContentKey.of("The Matrix", "1999-03-31") as first released
+    private static final long KNOWN_KEY = 3232512103622438737L;
+
+    @Test
+    public void caseAndWhitespace_dontChangeTheKey() {
+        long key = ContentKey.of("The Matrix", "1999-03-31");
+        assertEquals(key, ContentKey.of("the matrix", "1999-03-31"));
+        assertEquals(key, ContentKey.of("  THE\tMatrix \n", "1999-03-31 "));
+    }
+
+    @Test
+    public void unicodeForms_dontChangeTheKey() {
+        // Precomposed é against e plus a combining acute, and a full-width letter
+        assertEquals(ContentKey.of("Am\u00e9lie"), ContentKey.of("Ame\u0301lie"));
+        assertEquals(ContentKey.of("Up"), ContentKey.of("\uFF35p"));
+    }
+
+    @Test
+    public void partBoundaries_matter() {
+        assertNotEquals(ContentKey.of("ab", "c"), ContentKey.of("a", "bc"));
+        assertNotEquals(ContentKey.of("a", null), ContentKey.of(null, "a"));
+    }
+
+    @Test
+    public void differentContent_differentKeys() {
+        assertNotEquals(ContentKey.of("Alien", "1979-05-25"), ContentKey.of("Aliens", "1979-05-25"));
+        assertNotEquals(ContentKey.of("Alien", "1979-05-25"), ContentKey.of("Alien", "1979-05-26"));
+    }
+
+    @Test
+    public void keys_neverChange() {
+        // Keys are stored in the database, so the hash must stay the same across releases
+        assertEquals(KNOWN_KEY, ContentKey.of("The Matrix", "1999-03-31"));
+    }
+
+    @Test
+    public void normalize_foldsCaseAndWhitespace() {
+        assertEquals("the matrix reloaded", ContentKey.normalize("  The  MATRIX\n\nReloaded "));
+    }
+}
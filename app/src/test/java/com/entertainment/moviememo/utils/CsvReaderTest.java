@@ -0,0 +1,177 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CsvReaderTest {
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new StringReader(csv));
+    }
+
+    @Test
+    public void plainRecords_splitOnCommas() throws IOException {
+        CsvReader reader = reader("a,b,c\nd,e,f\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(3, reader.getFieldCount());
+        assertEquals("a", reader.getString(0));
+        assertEquals("c", reader.getString(2));
+        assertTrue(reader.nextRecord());
+        assertEquals("e", reader.getString(1));
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    public void emptyLine_isABlankRecord() throws IOException {
+        CsvReader reader = reader("a\n\nb\n");
+        assertTrue(reader.nextRecord());
+        assertFalse(reader.isBlankRecord());
+        assertTrue(reader.nextRecord());
+        assertTrue(reader.isBlankRecord());
+        assertTrue(reader.nextRecord());
+        assertEquals("b", reader.getString(0));
+    }
+
+    @Test
+    public void crlfRecords_dropTheCarriageReturn() throws IOException {
+        CsvReader reader = reader("a,b\r\nc,d\r\n");
+        assertTrue(reader.nextRecord());
+        assertEquals("b", reader.getString(1));
+        assertTrue(reader.nextRecord());
+        assertEquals("c", reader.getString(0));
+        assertEquals("d", reader.getString(1));
+    }
+
+    @Test
+    public void loneCarriageReturn_endsARecord() throws IOException {
+        CsvReader reader = reader("a\rb");
+        assertTrue(reader.nextRecord());
+        assertEquals("a", reader.getString(0));
+        assertTrue(reader.nextRecord());
+        assertEquals("b", reader.getString(0));
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    public void byteOrderMark_isSkipped() throws IOException {
+        CsvReader reader = reader("\uFEFFType,Title\n");
+        assertTrue(reader.nextRecord());
+        assertTrue(reader.fieldEquals(0, "Type"));
+        assertEquals("Title", reader.getString(1));
+    }
+
+    @Test
+    public void byteOrderMark_isOnlySkippedAtTheStart() throws IOException {
+        CsvReader reader = reader("a\n\uFEFFb\n");
+        assertTrue(reader.nextRecord());
+        assertTrue(reader.nextRecord());
+        assertEquals("\uFEFFb", reader.getString(0));
+    }
+
+    @Test
+    public void quotedFields_keepCommasQuotesAndLineBreaks() throws IOException {
+        CsvReader reader = reader("\"a,b\",\"say \"\"hi\"\"\",\"two\r\nlines\"\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(3, reader.getFieldCount());
+        assertEquals("a,b", reader.getString(0));
+        assertEquals("say \"hi\"", reader.getString(1));
+        assertEquals("two\r\nlines", reader.getString(2));
+    }
+
+    @Test
+    public void emptyAndMissingFields_readAsNull() throws IOException {
+        CsvReader reader = reader("a,,\"\"\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(3, reader.getFieldCount());
+        assertNull(reader.getString(1));
+        assertNull(reader.getString(2));
+        assertNull(reader.getString(5));
+        assertNull(reader.getLong(1));
+    }
+
+    @Test
+    public void lastRecord_needsNoLineBreak() throws IOException {
+        CsvReader reader = reader("a,b");
+        assertTrue(reader.nextRecord());
+        assertEquals("b", reader.getString(1));
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    public void numbers_parseFromTheRecord() throws IOException {
+        CsvReader reader = reader("42,-7,+3," + Long.MAX_VALUE + "\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(Integer.valueOf(42), reader.getInt(0));
+        assertEquals(Long.valueOf(-7), reader.getLong(1));
+        assertEquals(Long.valueOf(3), reader.getLong(2));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), reader.getLong(3));
+    }
+
+    @Test
+    public void badNumbers_throw() throws IOException {
+        CsvReader reader = reader("12a,-,99999999999,99999999999999999999\n");
+        assertTrue(reader.nextRecord());
+        for (int field = 0; field < 4; field++) {
+            try {
+                if (field == 2) {
+                    reader.getInt(field);
+                } else {
+                    reader.getLong(field);
+                }
+                fail("Field " + field + " parsed");
+            } catch (NumberFormatException expected) {
+                // Expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuote_throws() throws IOException {
+        reader("\"never closed\n").nextRecord();
+    }
+
+    @Test
+    public void longRecords_growTheBuffers() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        StringBuilder longField = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            longField.append((char) ('a' + i % 26));
+        }
+        for (int i = 0; i < 100; i++) {
+            csv.append(i).append(',');
+        }
+        csv.append(longField).append('\n');
+        CsvReader reader = reader(csv.toString());
+        assertTrue(reader.nextRecord());
+        assertEquals(101, reader.getFieldCount());
+        assertEquals(Long.valueOf(99), reader.getLong(99));
+        assertEquals(longField.toString(), reader.getString(100));
+    }
+
+    @Test
+    public void writtenRecords_readBackUnchanged() throws IOException {
+        String[] fields = {"plain", "a,b", "say \"hi\"", "two\nlines", "cr\r\nlf", null, "ünïcödé 🎬"};
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (String field : fields) {
+            writer.field(field);
+        }
+        writer.endRecord();
+
+        CsvReader reader = reader(out.toString());
+        assertTrue(reader.nextRecord());
+        assertEquals(fields.length, reader.getFieldCount());
+        for (int i = 0; i < fields.length; i++) {
+            assertEquals(fields[i], reader.getString(i));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvWriterTest {
+
+    private static String write(Object... fields) throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (Object field : fields) {
+            if (field instanceof Long) {
+                writer.field((Long) field);
+            } else if (field instanceof Integer) {
+                writer.field((Integer) field);
+            } else {
+                writer.field((String) field);
+            }
+        }
+        writer.endRecord();
+        writer.flush();
+        return out.toString();
+    }
+
+    @Test
+    public void plainFields_areNotQuoted() throws IOException {
+        assertEquals("Alien,1979,-5\n", write("Alien", 1979, -5L));
+    }
+
+    @Test
+    public void nullAndEmpty_writeEmptyFields() throws IOException {
+        assertEquals(",,,\n", write(null, "", (Long) null, (Integer) null));
+    }
+
+    @Test
+    public void specialCharacters_areQuoted() throws IOException {
+        assertEquals("\"a,b\",\"line\nbreak\",\"carriage\rreturn\"\n", write("a,b", "line\nbreak", "carriage\rreturn"));
+    }
+
+    @Test
+    public void quotes_areDoubled() throws IOException {
+        assertEquals("\"say \"\"hi\"\"\",\"\"\"\"\n", write("say \"hi\"", "\""));
+    }
+
+    @Test
+    public void records_endInLf() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.field("a");
+        writer.endRecord();
+        writer.field("b");
+        writer.endRecord();
+        assertEquals("a\nb\n", out.toString());
+    }
+}
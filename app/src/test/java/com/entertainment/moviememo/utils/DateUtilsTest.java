@@ -0,0 +1,73 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateUtilsTest {
+
+    @Test
+    public void toEpochDay_knownDates() {
+        assertEquals(0, DateUtils.toEpochDay("1970-01-01"));
+        assertEquals(-1, DateUtils.toEpochDay("1969-12-31"));
+        assertEquals(11016, DateUtils.toEpochDay("2000-02-29"));
+        assertEquals(11017, DateUtils.toEpochDay("2000-03-01"));
+    }
+
+    @Test
+    public void toEpochDay_aroundLeapDays() {
+        // 2000 is a leap year, 1900 and 2100 are not
+        assertEquals(1, DateUtils.toEpochDay("1900-03-01") - DateUtils.toEpochDay("1900-02-28"));
+        assertEquals(2, DateUtils.toEpochDay("2000-03-01") - DateUtils.toEpochDay("2000-02-28"));
+        assertEquals(2, DateUtils.toEpochDay("2024-03-01") - DateUtils.toEpochDay("2024-02-28"));
+        assertEquals(1, DateUtils.toEpochDay("2100-03-01") - DateUtils.toEpochDay("2100-02-28"));
+        assertEquals(366, DateUtils.toEpochDay("2025-01-01") - DateUtils.toEpochDay("2024-01-01"));
+        assertEquals(365, DateUtils.toEpochDay("2101-01-01") - DateUtils.toEpochDay("2100-01-01"));
+    }
+
+    @Test
+    public void toEpochDay_matchesLocalDateEveryDay() {
+        for (LocalDate date = LocalDate.of(1895, 1, 1); date.getYear() < 2105; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.toEpochDay(), DateUtils.toEpochDay(date.toString()));
+        }
+    }
+
+    @Test
+    public void toEpochDay_ignoresATimeAfterTheDate() {
+        assertEquals(DateUtils.toEpochDay("2024-02-29"), DateUtils.toEpochDay("2024-02-29T23:59:59"));
+    }
+
+    @Test
+    public void dayOfWeek_matchesSqliteNumbering() {
+        assertEquals(4, DateUtils.dayOfWeekFromEpochDay(0)); // 1970-01-01, Thursday
+        assertEquals(3, DateUtils.dayOfWeekFromEpochDay(-1)); // 1969-12-31, Wednesday
+        assertEquals(4, DateUtils.dayOfWeekFromEpochDay(DateUtils.toEpochDay("2024-02-29")));
+        assertEquals(0, DateUtils.dayOfWeekFromEpochDay(DateUtils.toEpochDay("2024-03-03")));
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() < 1901; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.getDayOfWeek().getValue() % 7,
+                    DateUtils.dayOfWeekFromEpochDay(date.toEpochDay()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toEpochDay_rejectsNull() {
+        DateUtils.toEpochDay(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toEpochDay_rejectsOtherFormats() {
+        DateUtils.toEpochDay("29/02/2024");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toEpochDay_rejectsMonth13() {
+        DateUtils.toEpochDay("2024-13-01");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toEpochDay_rejectsNonDigits() {
+        DateUtils.toEpochDay("2024-0a-01");
+    }
+}
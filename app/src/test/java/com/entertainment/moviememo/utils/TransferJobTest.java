@@ -0,0 +1,89 @@
+package com.entertainment.moviememo.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransferJobTest {
+
+    @Test
+    public void cancel_stopsAtTheNextCheck() {
+        TransferJob job = new TransferJob();
+        job.throwIfCancelled();
+        assertFalse(job.isCancelled());
+
+        job.cancel();
+        assertTrue(job.isCancelled());
+        try {
+            job.throwIfCancelled();
+            fail("Not cancelled");
+        } catch (CancellationException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void finish_reportsRowsBytesAndPhases() {
+        TransferJob job = new TransferJob();
+        job.addRows(10);
+        job.addRows(5);
+        job.addBytes(2048);
+        job.addPhaseTime("read", TimeUnit.MILLISECONDS.toNanos(30));
+        job.addPhaseTime("write", TimeUnit.MILLISECONDS.toNanos(20));
+        job.addPhaseTime("read", TimeUnit.MILLISECONDS.toNanos(12));
+        assertNull(job.getReport());
+
+        TransferJob.Report report = job.finish();
+        assertSame(report, job.getReport());
+        assertEquals(15, report.rows);
+        assertEquals(2048, report.bytes);
+        assertFalse(report.cancelled);
+        assertEquals(Long.valueOf(42), report.phaseMs.get("read"));
+        assertEquals(Long.valueOf(20), report.phaseMs.get("write"));
+        // Phases keep the order they were first timed in
+        assertEquals("[read, write]", report.phaseMs.keySet().toString());
+    }
+
+    @Test
+    public void finish_marksACancelledJob() {
+        TransferJob job = new TransferJob();
+        job.cancel();
+        assertTrue(job.finish().cancelled);
+        assertTrue(job.getReport().toString().contains("cancelled"));
+    }
+
+    @Test
+    public void finish_sendsAFinalProgressEvent() {
+        List<TransferJob.Progress> events = new ArrayList<>();
+        TransferJob job = new TransferJob(events::add);
+        job.setTotalRows(3);
+        job.addRows(3);
+        job.addBytes(100);
+        job.finish();
+
+        assertFalse(events.isEmpty());
+        TransferJob.Progress last = events.get(events.size() - 1);
+        assertEquals(3, last.rows);
+        assertEquals(100, last.bytes);
+        assertEquals(0, last.etaMs);
+    }
+
+    @Test
+    public void progress_hasNoEstimateWithoutTotals() {
+        List<TransferJob.Progress> events = new ArrayList<>();
+        TransferJob job = new TransferJob(events::add);
+        job.addRows(3);
+        job.finish();
+        assertEquals(-1, events.get(events.size() - 1).etaMs);
+    }
+}